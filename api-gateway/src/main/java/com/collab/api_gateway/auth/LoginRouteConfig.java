@@ -0,0 +1,42 @@
+package com.collab.api_gateway.auth;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Login goes to user-service as before, but a successful response gets a
+ * gateway token added ({@code token}, {@code expiresAt}). This route is
+ * ordered ahead of the general /api/users/** route in application.yml.
+ */
+@Configuration
+public class LoginRouteConfig {
+
+    @Bean
+    public RouteLocator loginRoute(RouteLocatorBuilder builder, TokenService tokenService,
+                                   @Value("${gateway.auth.user-service-url:http://localhost:8081}") String userServiceUrl) {
+        return builder.routes()
+                .route("user-login", route -> route.order(-1)
+                        .path("/api/users/login")
+                        .filters(f -> f.rewritePath("/api/users/login", "/users/login")
+                                .modifyResponseBody(Map.class, Map.class, (exchange, body) -> {
+                                    if (body == null || !exchange.getResponse().getStatusCode().is2xxSuccessful()
+                                            || !(body.get("userId") instanceof Number userId)) {
+                                        return Mono.justOrEmpty(body);
+                                    }
+                                    Map<String, Object> withToken = new HashMap<>(body);
+                                    TokenService.IssuedToken token = tokenService.issue(userId.longValue());
+                                    withToken.put("token", token.value());
+                                    withToken.put("expiresAt", token.expiresAt());
+                                    return Mono.just(withToken);
+                                }))
+                        .uri(userServiceUrl))
+                .build();
+    }
+}
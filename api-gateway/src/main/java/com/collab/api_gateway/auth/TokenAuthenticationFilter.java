@@ -0,0 +1,97 @@
+package com.collab.api_gateway.auth;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Resolves the caller from the {@code Authorization: Bearer} token and
+ * forwards it to the services as {@value #USER_ID_HEADER}. The header is
+ * always removed from incoming requests first, so only the gateway can set
+ * it. Requests with a bad or expired token get 401, and so do requests
+ * without one unless {@code gateway.auth.required} is turned off. A
+ * {@value #USER_ID_PARAM} query parameter naming anyone but the token's user
+ * gets 403, so a caller cannot act as someone else through the services'
+ * userId parameters. Service-to-service endpoints, which trust the user
+ * ids in their bodies, are not reachable through the gateway at all.
+ */
+@Component
+public class TokenAuthenticationFilter implements GlobalFilter, Ordered {
+
+    public static final String USER_ID_HEADER = "X-User-Id";
+    public static final String USER_ID_PARAM = "userId";
+
+    // reachable without a token even when tokens are required
+    private static final Set<String> PUBLIC_PATHS = Set.of("/api/users/login", "/api/users/register");
+
+    // called directly by document-service, with each version's editor in the body
+    private static final Set<String> INTERNAL_PATHS = Set.of("/api/versions/batch");
+
+    private final TokenService tokenService;
+    private final boolean required;
+
+    public TokenAuthenticationFilter(TokenService tokenService,
+                                     @Value("${gateway.auth.required:true}") boolean required) {
+        this.tokenService = tokenService;
+        this.required = required;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (INTERNAL_PATHS.contains(request.getPath().value())) {
+            exchange.getResponse().setStatusCode(HttpStatus.FORBIDDEN);
+            return exchange.getResponse().setComplete();
+        }
+        String token = bearerToken(request.getHeaders());
+        Optional<Long> userId = token != null ? tokenService.verify(token) : Optional.empty();
+
+        boolean open = request.getMethod() == HttpMethod.OPTIONS || PUBLIC_PATHS.contains(request.getPath().value());
+        if ((token != null && userId.isEmpty()) || (token == null && required && !open)) {
+            exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+            return exchange.getResponse().setComplete();
+        }
+        if (userId.isPresent() && !matchesCaller(request, userId.get())) {
+            exchange.getResponse().setStatusCode(HttpStatus.FORBIDDEN);
+            return exchange.getResponse().setComplete();
+        }
+
+        ServerHttpRequest forwarded = request.mutate().headers(headers -> {
+            headers.remove(USER_ID_HEADER);
+            userId.ifPresent(id -> headers.set(USER_ID_HEADER, id.toString()));
+        }).build();
+        return chain.filter(exchange.mutate().request(forwarded).build());
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    // Every userId parameter, if any, must be the caller's own id
+    private static boolean matchesCaller(ServerHttpRequest request, Long callerId) {
+        List<String> claimed = request.getQueryParams().get(USER_ID_PARAM);
+        if (claimed == null) return true;
+        String caller = callerId.toString();
+        return claimed.stream().allMatch(caller::equals);
+    }
+
+    private static String bearerToken(HttpHeaders headers) {
+        String authorization = headers.getFirst(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.regionMatches(true, 0, "Bearer ", 0, 7)) return null;
+        String token = authorization.substring(7).trim();
+        return token.isEmpty() ? null : token;
+    }
+}
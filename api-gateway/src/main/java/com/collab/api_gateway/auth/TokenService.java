@@ -0,0 +1,120 @@
+package com.collab.api_gateway.auth;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Issues and checks the gateway's session tokens:
+ * {@code base64url(userId:expiresAt) + "." + base64url(HMAC-SHA256)}.
+ * Tokens are verified locally, never against user-service, and tokens that
+ * passed once are remembered until they expire so repeat requests skip the
+ * HMAC as well.
+ */
+@Component
+public class TokenService {
+
+    public record IssuedToken(String value, long expiresAt) {}
+
+    private record VerifiedToken(Long userId, long expiresAt) {}
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final byte[] secret;
+    private final long ttlSeconds;
+    private final Clock clock;
+    private final Map<String, VerifiedToken> verified;
+
+    @Autowired
+    public TokenService(@Value("${gateway.auth.secret:}") String secret,
+                        @Value("${gateway.auth.token-ttl-seconds:28800}") long ttlSeconds,
+                        @Value("${gateway.auth.cache-size:10000}") int cacheSize) {
+        this(secret, ttlSeconds, cacheSize, Clock.systemUTC());
+    }
+
+    TokenService(String secret, long ttlSeconds, int cacheSize, Clock clock) {
+        if (secret == null || secret.isBlank()) {
+            // fine for a single dev instance; every restart invalidates all tokens
+            System.err.println("gateway.auth.secret is not set, signing tokens with a random key");
+            this.secret = new byte[32];
+            new SecureRandom().nextBytes(this.secret);
+        } else {
+            this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.ttlSeconds = ttlSeconds;
+        this.clock = clock;
+        this.verified = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public IssuedToken issue(Long userId) {
+        long expiresAt = clock.instant().getEpochSecond() + ttlSeconds;
+        String payload = ENCODER.encodeToString((userId + ":" + expiresAt).getBytes(StandardCharsets.UTF_8));
+        return new IssuedToken(payload + "." + ENCODER.encodeToString(sign(payload)), expiresAt);
+    }
+
+    /**
+     * The user id the token was issued for, or empty if it is malformed,
+     * forged or expired.
+     */
+    public Optional<Long> verify(String token) {
+        long now = clock.instant().getEpochSecond();
+        VerifiedToken known;
+        synchronized (verified) {
+            known = verified.get(token);
+        }
+        if (known != null) {
+            if (known.expiresAt() > now) return Optional.of(known.userId());
+            synchronized (verified) {
+                verified.remove(token);
+            }
+            return Optional.empty();
+        }
+
+        int dot = token.indexOf('.');
+        if (dot <= 0) return Optional.empty();
+        String payload = token.substring(0, dot);
+        VerifiedToken parsed;
+        try {
+            if (!MessageDigest.isEqual(sign(payload), DECODER.decode(token.substring(dot + 1)))) {
+                return Optional.empty();
+            }
+            String[] fields = new String(DECODER.decode(payload), StandardCharsets.UTF_8).split(":");
+            parsed = new VerifiedToken(Long.parseLong(fields[0]), Long.parseLong(fields[1]));
+        } catch (RuntimeException e) {
+            return Optional.empty();
+        }
+        if (parsed.expiresAt() <= now) return Optional.empty();
+        synchronized (verified) {
+            verified.put(token, parsed);
+        }
+        return Optional.of(parsed.userId());
+    }
+
+    private byte[] sign(String payload) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+            return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+}
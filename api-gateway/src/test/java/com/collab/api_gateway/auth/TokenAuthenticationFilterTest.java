@@ -0,0 +1,100 @@
+package com.collab.api_gateway.auth;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenAuthenticationFilterTest {
+
+    private final TokenService tokenService = new TokenService("secret", 3600, 100);
+    private final AtomicReference<ServerWebExchange> forwarded = new AtomicReference<>();
+    private final GatewayFilterChain chain = exchange -> {
+        forwarded.set(exchange);
+        return Mono.empty();
+    };
+
+    @Test
+    void testValidTokenForwardsUserIdAndReplacesSpoofedHeader() {
+        String token = tokenService.issue(7L).value();
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/documents/1")
+                .header("Authorization", "Bearer " + token)
+                .header(TokenAuthenticationFilter.USER_ID_HEADER, "1"));
+
+        new TokenAuthenticationFilter(tokenService, false).filter(exchange, chain).block();
+
+        assertEquals(java.util.List.of("7"),
+                forwarded.get().getRequest().getHeaders().get(TokenAuthenticationFilter.USER_ID_HEADER));
+    }
+
+    @Test
+    void testAnonymousRequestLosesSpoofedHeader() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/documents/1")
+                .header(TokenAuthenticationFilter.USER_ID_HEADER, "1"));
+
+        new TokenAuthenticationFilter(tokenService, false).filter(exchange, chain).block();
+
+        assertNull(forwarded.get().getRequest().getHeaders().getFirst(TokenAuthenticationFilter.USER_ID_HEADER));
+    }
+
+    @Test
+    void testBadTokenIsRejected() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/documents/1")
+                .header("Authorization", "Bearer forged.token"));
+
+        new TokenAuthenticationFilter(tokenService, false).filter(exchange, chain).block();
+
+        assertEquals(HttpStatus.UNAUTHORIZED, exchange.getResponse().getStatusCode());
+        assertNull(forwarded.get());
+    }
+
+    @Test
+    void testUserIdParameterMustMatchToken() {
+        String token = tokenService.issue(7L).value();
+        TokenAuthenticationFilter filter = new TokenAuthenticationFilter(tokenService, true);
+
+        MockServerWebExchange spoofed = MockServerWebExchange.from(MockServerHttpRequest.put("/api/documents/1")
+                .queryParam("userId", "1")
+                .header("Authorization", "Bearer " + token));
+        filter.filter(spoofed, chain).block();
+        assertEquals(HttpStatus.FORBIDDEN, spoofed.getResponse().getStatusCode());
+        assertNull(forwarded.get());
+
+        MockServerWebExchange own = MockServerWebExchange.from(MockServerHttpRequest.put("/api/documents/1")
+                .queryParam("userId", "7")
+                .header("Authorization", "Bearer " + token));
+        filter.filter(own, chain).block();
+        assertNotNull(forwarded.get());
+    }
+
+    @Test
+    void testInternalEndpointsAreBlocked() {
+        String token = tokenService.issue(7L).value();
+        MockServerWebExchange batch = MockServerWebExchange.from(MockServerHttpRequest.post("/api/versions/batch")
+                .header("Authorization", "Bearer " + token));
+
+        new TokenAuthenticationFilter(tokenService, true).filter(batch, chain).block();
+
+        assertEquals(HttpStatus.FORBIDDEN, batch.getResponse().getStatusCode());
+        assertNull(forwarded.get());
+    }
+
+    @Test
+    void testRequiredModeStillAllowsLogin() {
+        TokenAuthenticationFilter filter = new TokenAuthenticationFilter(tokenService, true);
+        MockServerWebExchange documents = MockServerWebExchange.from(MockServerHttpRequest.get("/api/documents"));
+        filter.filter(documents, chain).block();
+        assertEquals(HttpStatus.UNAUTHORIZED, documents.getResponse().getStatusCode());
+
+        MockServerWebExchange login = MockServerWebExchange.from(MockServerHttpRequest.post("/api/users/login"));
+        filter.filter(login, chain).block();
+        assertNotNull(forwarded.get());
+    }
+}
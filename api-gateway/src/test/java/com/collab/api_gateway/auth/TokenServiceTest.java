@@ -0,0 +1,68 @@
+package com.collab.api_gateway.auth;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenServiceTest {
+
+    private final Instant start = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Test
+    void testIssuedTokenVerifiesUntilExpiry() {
+        MutableClock clock = new MutableClock(start);
+        TokenService tokens = new TokenService("secret", 60, 10, clock);
+
+        TokenService.IssuedToken token = tokens.issue(42L);
+        assertEquals(start.getEpochSecond() + 60, token.expiresAt());
+        assertEquals(Optional.of(42L), tokens.verify(token.value()));
+        // second check is served from the verified cache
+        assertEquals(Optional.of(42L), tokens.verify(token.value()));
+
+        clock.instant = start.plusSeconds(61);
+        assertEquals(Optional.empty(), tokens.verify(token.value()));
+    }
+
+    @Test
+    void testForgedAndMalformedTokensAreRejected() {
+        TokenService tokens = new TokenService("secret", 60, 10, new MutableClock(start));
+        TokenService other = new TokenService("other-secret", 60, 10, new MutableClock(start));
+        String token = tokens.issue(42L).value();
+        String payload = token.substring(0, token.indexOf('.'));
+        String forgedPayload = java.util.Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("1:" + (start.getEpochSecond() + 60)).getBytes());
+
+        assertEquals(Optional.empty(), other.verify(token));
+        assertEquals(Optional.empty(), tokens.verify(forgedPayload + token.substring(payload.length())));
+        assertEquals(Optional.empty(), tokens.verify("garbage"));
+        assertEquals(Optional.empty(), tokens.verify("a.b"));
+    }
+
+    private static class MutableClock extends Clock {
+        Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.collab.collaboration_service.codec;
+
+import com.collab.collaboration_service.dto.CollaborationMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary form of {@link CollaborationMessage} for clients that opt in
+ * by sending to /app/doc/{docId}/edit.bin and subscribing to
+ * /topic/doc/{docId}/bin over the raw /ws-native endpoint.
+ *
+ * Layout: version byte, op code byte, a flags byte telling which fields
+ * follow, then the fields in flag order. Integers are unsigned LEB128
+ * varints, strings are a varint byte length followed by UTF-8. Each operation
+ * component is a tag (0 retain, 1 delete, 2 insert) plus a varint or string.
+ * The username is never sent: frames carry only the userId and clients look
+ * names up once, instead of paying for the same string on every keystroke.
+ * Only a top-level batch may carry nested messages, so frames nest at most
+ * one level deep.
+ */
+public final class BinaryFrameCodec {
+
+    public static final byte VERSION = 1;
+
+    private static final String[] OP_CODES = {"ot", "full", "snapshot", "error", "batch"};
+
+    private static final int HAS_USER_ID = 1;
+    private static final int HAS_REVISION = 1 << 1;
+    private static final int HAS_CLIENT_ID = 1 << 2;
+    private static final int HAS_OPS = 1 << 3;
+    private static final int HAS_CONTENT = 1 << 4;
+    private static final int HAS_MESSAGES = 1 << 5;
+
+    private static final int RETAIN = 0;
+    private static final int DELETE = 1;
+    private static final int INSERT = 2;
+
+    private static final int MAX_NESTING = 1;
+
+    private BinaryFrameCodec() {
+    }
+
+    public static byte[] encode(CollaborationMessage message) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(VERSION);
+        writeMessage(out, message, 0);
+        return out.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the frame is truncated, nests deeper than one batch,
+     *                                  or uses an unknown version or code
+     */
+    public static CollaborationMessage decode(byte[] frame) {
+        return decode(frame, MAX_NESTING);
+    }
+
+    /**
+     * Decodes a single client edit. Clients never send batches, so any nested messages are rejected.
+     *
+     * @throws IllegalArgumentException if the frame is malformed or carries nested messages
+     */
+    public static CollaborationMessage decodeEdit(byte[] frame) {
+        return decode(frame, 0);
+    }
+
+    private static CollaborationMessage decode(byte[] frame, int maxNesting) {
+        Reader in = new Reader(frame);
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported binary frame version " + version);
+        }
+        CollaborationMessage message = readMessage(in, maxNesting);
+        if (in.pos != frame.length) {
+            throw new IllegalArgumentException("Trailing bytes in binary frame");
+        }
+        return message;
+    }
+
+    private static void writeMessage(ByteArrayOutputStream out, CollaborationMessage message, int depth) {
+        out.write(opCode(message.getOp()));
+        int flags = 0;
+        if (message.getUserId() != null) flags |= HAS_USER_ID;
+        if (message.getRevision() != null) flags |= HAS_REVISION;
+        if (message.getClientId() != null) flags |= HAS_CLIENT_ID;
+        if (message.getOps() != null) flags |= HAS_OPS;
+        if (message.getContent() != null) flags |= HAS_CONTENT;
+        if (message.getMessages() != null) flags |= HAS_MESSAGES;
+        out.write(flags);
+
+        if (message.getUserId() != null) writeVarint(out, message.getUserId());
+        if (message.getRevision() != null) writeVarint(out, message.getRevision());
+        if (message.getClientId() != null) writeString(out, message.getClientId());
+        if (message.getOps() != null) {
+            writeVarint(out, message.getOps().size());
+            for (Object component : message.getOps()) {
+                if (component instanceof String s) {
+                    out.write(INSERT);
+                    writeString(out, s);
+                } else if (component instanceof Number n && n.longValue() > 0) {
+                    out.write(RETAIN);
+                    writeVarint(out, n.longValue());
+                } else if (component instanceof Number n && n.longValue() < 0) {
+                    out.write(DELETE);
+                    writeVarint(out, -n.longValue());
+                } else {
+                    throw new IllegalArgumentException("Unknown operation component: " + component);
+                }
+            }
+        }
+        if (message.getContent() != null) writeString(out, message.getContent());
+        if (message.getMessages() != null) {
+            if (depth >= MAX_NESTING) {
+                throw new IllegalArgumentException("Batches cannot be nested");
+            }
+            writeVarint(out, message.getMessages().size());
+            for (CollaborationMessage nested : message.getMessages()) {
+                writeMessage(out, nested, depth + 1);
+            }
+        }
+    }
+
+    private static CollaborationMessage readMessage(Reader in, int maxNesting) {
+        CollaborationMessage message = new CollaborationMessage();
+        int code = in.readByte();
+        if (code >= OP_CODES.length) {
+            throw new IllegalArgumentException("Unknown op code " + code);
+        }
+        message.setOp(OP_CODES[code]);
+        int flags = in.readByte();
+
+        if ((flags & HAS_USER_ID) != 0) message.setUserId(in.readVarint());
+        if ((flags & HAS_REVISION) != 0) message.setRevision(in.readInt());
+        if ((flags & HAS_CLIENT_ID) != 0) message.setClientId(in.readString());
+        if ((flags & HAS_OPS) != 0) {
+            int count = in.readCount();
+            List<Object> ops = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int tag = in.readByte();
+                switch (tag) {
+                    case RETAIN -> ops.add(in.readInt());
+                    case DELETE -> ops.add(-in.readInt());
+                    case INSERT -> ops.add(in.readString());
+                    default -> throw new IllegalArgumentException("Unknown operation tag " + tag);
+                }
+            }
+            message.setOps(ops);
+        }
+        if ((flags & HAS_CONTENT) != 0) message.setContent(in.readString());
+        if ((flags & HAS_MESSAGES) != 0) {
+            if (maxNesting <= 0) {
+                throw new IllegalArgumentException("Nested messages are not allowed here");
+            }
+            int count = in.readCount();
+            List<CollaborationMessage> messages = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                messages.add(readMessage(in, maxNesting - 1));
+            }
+            message.setMessages(messages);
+        }
+        return message;
+    }
+
+    private static int opCode(String op) {
+        for (int i = 0; i < OP_CODES.length; i++) {
+            if (OP_CODES[i].equals(op)) return i;
+        }
+        // clients that leave op out send plain operations
+        if (op == null) return 0;
+        throw new IllegalArgumentException("Unknown op: " + op);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        if (value < 0) throw new IllegalArgumentException("Negative varint: " + value);
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static final class Reader {
+        private final byte[] buf;
+        private int pos;
+
+        Reader(byte[] buf) {
+            this.buf = buf;
+        }
+
+        int readByte() {
+            if (pos >= buf.length) throw new IllegalArgumentException("Truncated binary frame");
+            return buf[pos++] & 0xFF;
+        }
+
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    if (value < 0) break;
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in binary frame");
+        }
+
+        int readInt() {
+            long value = readVarint();
+            if (value > Integer.MAX_VALUE) throw new IllegalArgumentException("Value out of range in binary frame: " + value);
+            return (int) value;
+        }
+
+        // element counts can never exceed the remaining bytes, which stops huge allocations from bad frames
+        int readCount() {
+            long count = readVarint();
+            if (count > buf.length - pos) throw new IllegalArgumentException("Truncated binary frame");
+            return (int) count;
+        }
+
+        String readString() {
+            int length = readCount();
+            String value = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+    }
+}
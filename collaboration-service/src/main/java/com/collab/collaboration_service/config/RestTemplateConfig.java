@@ -0,0 +1,21 @@
+package com.collab.collaboration_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+@Configuration
+public class RestTemplateConfig {
+
+    // Documents are loaded on the edit lanes; a hung document-service must not stall them
+    @Bean
+    public RestTemplate restTemplate(@Value("${collab.http.connect-timeout-ms:2000}") int connectTimeoutMs,
+                                     @Value("${collab.http.read-timeout-ms:5000}") int readTimeoutMs) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeoutMs);
+        requestFactory.setReadTimeout(readTimeoutMs);
+        return new RestTemplate(requestFactory);
+    }
+}
@@ -0,0 +1,293 @@
+package com.collab.collaboration_service.config;
+
+import com.collab.collaboration_service.dto.CollaborationMessage;
+import com.collab.collaboration_service.ot.CollaborativeDocument;
+import com.collab.collaboration_service.service.OperationalTransformService;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Soft limit on what each WebSocket session may have queued but not yet
+ * written. Every MESSAGE frame is counted when it enters the client outbound
+ * channel and uncounted once it has been written to the socket. When a
+ * session goes over {@code collab.ws.slow-consumer.max-buffered-bytes}:
+ * <ul>
+ *   <li>{@code resync} (default): further edit frames of the documents it fell
+ *   behind on are dropped, and once it has drained below
+ *   {@code resume-bytes} it gets the current snapshot of each of them on
+ *   /user/queue/doc/{docId}/resync. Frames already on their way may arrive
+ *   around the snapshot; clients ignore any with a revision not above it.</li>
+ *   <li>{@code disconnect}: the session is closed and the client reconnects.</li>
+ * </ul>
+ * Snapshots are built and sent on a separate thread, never on the socket
+ * write thread that noticed the drain.
+ * Presence frames over the limit are simply dropped under either policy;
+ * the next update supersedes them anyway. The hard send-buffer limit in
+ * {@link WebSocketConfig} still terminates a session that never drains.
+ */
+@Component
+public class SlowConsumerGuard implements ChannelInterceptor {
+
+    private static final Pattern DOCUMENT_TOPIC = Pattern.compile("^/topic/doc/(\\d+)(/bin|/presence)?$");
+    private static final byte[] MESSAGE_COMMAND = "MESSAGE\n".getBytes(StandardCharsets.US_ASCII);
+    // charged for payload types whose encoded size isn't known here
+    private static final int UNKNOWN_PAYLOAD_BYTES = 1024;
+
+    private final long maxBufferedBytes;
+    private final long resumeBytes;
+    private final boolean disconnect;
+    // resolved lazily: both depend on the broker configuration this guard is part of
+    private final ObjectProvider<SimpMessagingTemplate> messagingTemplate;
+    private final ObjectProvider<OperationalTransformService> otService;
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+    private final ExecutorService resyncExecutor =
+            Executors.newSingleThreadExecutor(r -> new Thread(r, "slow-consumer-resync"));
+
+    public SlowConsumerGuard(@Value("${collab.ws.slow-consumer.max-buffered-bytes:262144}") long maxBufferedBytes,
+                             @Value("${collab.ws.slow-consumer.resume-bytes:32768}") long resumeBytes,
+                             @Value("${collab.ws.slow-consumer.policy:resync}") String policy,
+                             ObjectProvider<SimpMessagingTemplate> messagingTemplate,
+                             ObjectProvider<OperationalTransformService> otService) {
+        this.maxBufferedBytes = maxBufferedBytes;
+        this.resumeBytes = resumeBytes;
+        this.disconnect = "disconnect".equalsIgnoreCase(policy);
+        this.messagingTemplate = messagingTemplate;
+        this.otService = otService;
+    }
+
+    private static final class SessionState {
+        final WebSocketSession session;
+        final AtomicLong bufferedBytes = new AtomicLong();
+        // sizes of accepted frames not written yet, in send order
+        final Queue<Integer> inFlight = new ConcurrentLinkedQueue<>();
+        // documents whose edit frames are being dropped until the session is resynced
+        final Set<Long> stalledDocuments = ConcurrentHashMap.newKeySet();
+        final AtomicLong droppedFrames = new AtomicLong();
+        final AtomicBoolean resyncQueued = new AtomicBoolean();
+        final AtomicBoolean closing = new AtomicBoolean();
+
+        SessionState(WebSocketSession session) {
+            this.session = session;
+        }
+    }
+
+    // Registered through WebSocketTransportRegistration#addDecoratorFactory
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                SessionState state = new SessionState(session);
+                sessions.put(session.getId(), state);
+                super.afterConnectionEstablished(new CountingSession(session, state));
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor headers = MessageHeaderAccessor.getAccessor(message, SimpMessageHeaderAccessor.class);
+        if (headers == null || headers.getMessageType() != SimpMessageType.MESSAGE) return message;
+        SessionState state = sessions.get(headers.getSessionId());
+        if (state == null) return message;
+
+        int size = sizeOf(message.getPayload());
+        Matcher topic = headers.getDestination() != null ? DOCUMENT_TOPIC.matcher(headers.getDestination()) : null;
+        if (topic != null && topic.matches()) {
+            Long docId = Long.valueOf(topic.group(1));
+            boolean presence = "/presence".equals(topic.group(2));
+            boolean stalled = !presence && state.stalledDocuments.contains(docId);
+            if (stalled || state.bufferedBytes.get() + size > maxBufferedBytes) {
+                state.droppedFrames.incrementAndGet();
+                if (presence) {
+                    return null;
+                }
+                if (disconnect) {
+                    if (state.closing.compareAndSet(false, true)) {
+                        close(state);
+                    }
+                } else {
+                    state.stalledDocuments.add(docId);
+                }
+                return null;
+            }
+        }
+        state.inFlight.add(size);
+        state.bufferedBytes.addAndGet(size);
+        return message;
+    }
+
+    private void written(SessionState state) {
+        Integer size = state.inFlight.poll();
+        if (size != null) {
+            state.bufferedBytes.addAndGet(-size);
+        }
+        if (!state.stalledDocuments.isEmpty() && state.bufferedBytes.get() <= resumeBytes
+                && state.resyncQueued.compareAndSet(false, true)) {
+            try {
+                resyncExecutor.execute(() -> {
+                    state.resyncQueued.set(false);
+                    resync(state);
+                });
+            } catch (RejectedExecutionException e) {
+                state.resyncQueued.set(false);
+            }
+        }
+    }
+
+    private static int sizeOf(Object payload) {
+        if (payload instanceof byte[] bytes) return bytes.length;
+        if (payload instanceof CharSequence text) return utf8Length(text);
+        if (payload instanceof ByteBuffer buffer) return buffer.remaining();
+        return UNKNOWN_PAYLOAD_BYTES;
+    }
+
+    // Bytes the text takes on the wire, without encoding it
+    private static int utf8Length(CharSequence text) {
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) length += 1;
+            else if (c < 0x800) length += 2;
+            // each half of a surrogate pair counts 2 of the pair's 4 bytes
+            else if (Character.isSurrogate(c)) length += 2;
+            else length += 3;
+        }
+        return length;
+    }
+
+    private void resync(SessionState state) {
+        String sessionId = state.session.getId();
+        for (Long docId : new ArrayList<>(state.stalledDocuments)) {
+            // un-stall first so no frame newer than the snapshot can be dropped
+            if (!state.stalledDocuments.remove(docId)) continue;
+            if (!sessions.containsKey(sessionId)) return;
+            CollaborativeDocument doc = otService.getObject().getDocument(docId);
+            CollaborationMessage snapshot = new CollaborationMessage();
+            snapshot.setOp("snapshot");
+            synchronized (doc) {
+                snapshot.setContent(doc.getContent());
+                snapshot.setRevision(doc.getRevision());
+            }
+            SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            headers.setSessionId(sessionId);
+            headers.setLeaveMutable(true);
+            messagingTemplate.getObject().convertAndSendToUser(
+                    sessionId, "/queue/doc/" + docId + "/resync", snapshot, headers.getMessageHeaders());
+        }
+    }
+
+    private void close(SessionState state) {
+        try {
+            state.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            System.err.println("Failed to close slow session " + state.session.getId() + ": " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        resyncExecutor.shutdown();
+    }
+
+    // Sessions with the most unwritten bytes first
+    public List<Map<String, Object>> getSessionStats(int limit) {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        sessions.values().stream()
+                .sorted(Comparator.comparingLong((SessionState s) -> s.bufferedBytes.get()).reversed())
+                .limit(limit)
+                .forEach(state -> {
+                    Map<String, Object> stat = new HashMap<>();
+                    stat.put("sessionId", state.session.getId());
+                    stat.put("bufferedBytes", state.bufferedBytes.get());
+                    stat.put("queuedFrames", state.inFlight.size());
+                    stat.put("droppedFrames", state.droppedFrames.get());
+                    stat.put("stalledDocuments", new ArrayList<>(state.stalledDocuments));
+                    stats.add(stat);
+                });
+        return stats;
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * The session Spring's STOMP handler writes to. Only frames that went
+     * through {@link #preSend} as MESSAGE are uncounted; CONNECTED, RECEIPT,
+     * ERROR and heartbeats are written directly and never counted.
+     */
+    private final class CountingSession extends WebSocketSessionDecorator {
+        private final SessionState state;
+
+        CountingSession(WebSocketSession session, SessionState state) {
+            super(session);
+            this.state = state;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            super.sendMessage(message);
+            if (isMessageFrame(message)) {
+                written(state);
+            }
+        }
+
+        private boolean isMessageFrame(WebSocketMessage<?> message) {
+            if (message instanceof TextMessage text) {
+                return text.getPayload().startsWith("MESSAGE\n");
+            }
+            if (message instanceof BinaryMessage binary) {
+                ByteBuffer payload = binary.getPayload().duplicate();
+                if (payload.remaining() < MESSAGE_COMMAND.length) return false;
+                for (byte b : MESSAGE_COMMAND) {
+                    if (payload.get() != b) return false;
+                }
+                return true;
+            }
+            return false;
+        }
+    }
+}
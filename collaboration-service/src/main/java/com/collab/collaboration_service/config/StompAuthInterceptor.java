@@ -0,0 +1,101 @@
+package com.collab.collaboration_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.Principal;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Authenticates STOMP sessions with the gateway's session token, sent as an
+ * {@code Authorization: Bearer} header of the CONNECT frame (browsers cannot
+ * set headers on the WebSocket handshake itself). The session's principal is
+ * named after the token's userId, so handlers can take the caller from it
+ * instead of from message bodies. Tokens are checked with the gateway's
+ * secret ({@code collab.auth.secret}); without one configured sessions stay
+ * anonymous, which is only meant for local testing.
+ */
+@Component
+public class StompAuthInterceptor implements ChannelInterceptor {
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final byte[] secret;
+    private final boolean required;
+    private final Clock clock;
+
+    public StompAuthInterceptor(@Value("${collab.auth.secret:}") String secret,
+                                @Value("${collab.auth.required:true}") boolean required) {
+        this(secret, required, Clock.systemUTC());
+    }
+
+    StompAuthInterceptor(String secret, boolean required, Clock clock) {
+        if (secret == null || secret.isBlank()) {
+            System.err.println("collab.auth.secret is not set, WebSocket sessions are not authenticated");
+            this.secret = null;
+        } else {
+            this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.required = required;
+        this.clock = clock;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor headers = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (headers == null || headers.getCommand() != StompCommand.CONNECT || secret == null) return message;
+
+        String authorization = headers.getFirstNativeHeader("Authorization");
+        if (authorization == null || !authorization.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            if (required) throw new MessageDeliveryException("Missing session token");
+            return message;
+        }
+        Long userId = verify(authorization.substring(7).trim())
+                .orElseThrow(() -> new MessageDeliveryException("Invalid or expired session token"));
+        Principal user = userId::toString;
+        headers.setUser(user);
+        return message;
+    }
+
+    // Same format as the gateway's TokenService: base64url(userId:expiresAt) + "." + base64url(HMAC-SHA256)
+    Optional<Long> verify(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0) return Optional.empty();
+        String payload = token.substring(0, dot);
+        try {
+            if (!MessageDigest.isEqual(sign(payload), DECODER.decode(token.substring(dot + 1)))) {
+                return Optional.empty();
+            }
+            String[] fields = new String(DECODER.decode(payload), StandardCharsets.UTF_8).split(":");
+            long expiresAt = Long.parseLong(fields[1]);
+            if (expiresAt <= clock.instant().getEpochSecond()) return Optional.empty();
+            return Optional.of(Long.parseLong(fields[0]));
+        } catch (RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    private byte[] sign(String payload) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+            return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+}
@@ -1,24 +1,100 @@
 package com.collab.collaboration_service.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.*;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+
+    private final SlowConsumerGuard slowConsumerGuard;
+    private final StompAuthInterceptor stompAuthInterceptor;
+
+    // "simple" = in-memory broker (single instance), "relay" = external STOMP broker shared by all instances
+    @Value("${websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${websocket.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${websocket.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${websocket.broker.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${websocket.broker.relay.passcode:guest}")
+    private String relayPasscode;
+
+    // hard per-session limits: a session over either of the first two is terminated by Spring
+    @Value("${collab.ws.send-buffer-limit-bytes:1048576}")
+    private int sendBufferLimitBytes;
+
+    @Value("${collab.ws.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${collab.ws.message-size-limit-bytes:524288}")
+    private int messageSizeLimitBytes;
+
+    public WebSocketConfig(SlowConsumerGuard slowConsumerGuard, StompAuthInterceptor stompAuthInterceptor) {
+        this.slowConsumerGuard = slowConsumerGuard;
+        this.stompAuthInterceptor = stompAuthInterceptor;
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         // endpoint for SockJS clients to connect
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
+        // plain WebSocket for clients using the binary frames (/app/doc/{docId}/edit.bin, /topic/doc/{docId}/bin):
+        // SockJS transports are text only. Compression is per connection via permessage-deflate,
+        // which the container negotiates when the client offers it.
+        registry.addEndpoint("/ws-native")
+                .setAllowedOriginPatterns("*");
+        // hand a session's frames to the controllers in the order they arrived; DocumentShardExecutor keeps it per document
+        registry.setPreserveReceiveOrder(true);
     }
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        // simple in-memory broker
-        registry.enableSimpleBroker("/topic");
+        // /queue carries per-session replies such as rejected edits
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            // fan-out of /topic/doc/{docId} goes through the external broker, so every instance sees every edit
+            registry.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode);
+        } else {
+            // simple in-memory broker
+            registry.enableSimpleBroker("/topic", "/queue");
+        }
         registry.setApplicationDestinationPrefixes("/app");
+        // keep each session's frames in broadcast order, which SlowConsumerGuard's accounting relies on
+        registry.setPreservePublishOrder(true);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendBufferSizeLimit(sendBufferLimitBytes)
+                .setSendTimeLimit(sendTimeLimitMs)
+                .setMessageSizeLimit(messageSizeLimitBytes)
+                .addDecoratorFactory(slowConsumerGuard::decorate);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(stompAuthInterceptor);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(slowConsumerGuard);
     }
 }
@@ -0,0 +1,94 @@
+package com.collab.collaboration_service.controller;
+
+import com.collab.collaboration_service.dto.CollaborationMessage;
+import com.collab.collaboration_service.ot.AppliedOperation;
+import com.collab.collaboration_service.service.DocumentBroadcaster;
+import com.collab.collaboration_service.service.DocumentShardExecutor;
+import com.collab.collaboration_service.service.OperationalTransformService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Service-to-service endpoints; the gateway does not route /collab, and these are not meant for browsers.
+ * Callers send collab.internal.token in X-Internal-Token. With no token configured only callers on
+ * this host are accepted.
+ */
+@RestController
+@RequestMapping("/collab/documents")
+public class ContentSyncController {
+
+    static final String INTERNAL_TOKEN_HEADER = "X-Internal-Token";
+
+    private final OperationalTransformService otService;
+    private final DocumentShardExecutor shardExecutor;
+    private final DocumentBroadcaster broadcaster;
+    private final byte[] internalToken;
+
+    public ContentSyncController(OperationalTransformService otService, DocumentShardExecutor shardExecutor,
+                                 DocumentBroadcaster broadcaster,
+                                 @Value("${collab.internal.token:}") String internalToken) {
+        this.otService = otService;
+        this.shardExecutor = shardExecutor;
+        this.broadcaster = broadcaster;
+        this.internalToken = internalToken.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Server-side content replacement, used by version-service after a revert. Open documents
+     * get it as a "full" edit on their lane, ordered with client edits; documents nobody has
+     * open load the new content from document-service when they are next opened.
+     */
+    @PutMapping("/{docId}/content")
+    public ResponseEntity<Void> replaceContent(@PathVariable Long docId, @RequestBody CollaborationMessage message,
+                                               @RequestHeader(value = INTERNAL_TOKEN_HEADER, required = false) String token,
+                                               HttpServletRequest request) {
+        if (!isInternalCaller(token, request.getRemoteAddr())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (message.getContent() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (otService.findOpen(docId).isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
+        try {
+            shardExecutor.execute(docId, () -> {
+                try {
+                    AppliedOperation applied = otService.replaceContent(docId, message.getContent());
+                    CollaborationMessage outbound = new CollaborationMessage();
+                    outbound.setOp("full");
+                    outbound.setUserId(message.getUserId());
+                    outbound.setContent(message.getContent());
+                    outbound.setOps(applied.operation().toJson());
+                    outbound.setRevision(applied.revision());
+                    broadcaster.broadcast(docId, outbound);
+                } catch (RuntimeException e) {
+                    System.err.println("Failed to replace content of document " + docId + ": " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.accepted().build();
+    }
+
+    boolean isInternalCaller(String token, String remoteAddr) {
+        if (internalToken.length > 0) {
+            return token != null && MessageDigest.isEqual(internalToken, token.getBytes(StandardCharsets.UTF_8));
+        }
+        try {
+            return remoteAddr != null && InetAddress.getByName(remoteAddr).isLoopbackAddress();
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+}
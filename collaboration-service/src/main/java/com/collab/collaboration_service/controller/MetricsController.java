@@ -0,0 +1,59 @@
+package com.collab.collaboration_service.controller;
+
+import com.collab.collaboration_service.config.SlowConsumerGuard;
+import com.collab.collaboration_service.service.DocumentBroadcaster;
+import com.collab.collaboration_service.service.DocumentShardExecutor;
+import com.collab.collaboration_service.service.PresenceService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/collab/metrics")
+@CrossOrigin(origins = "*")
+public class MetricsController {
+
+    private final DocumentShardExecutor shardExecutor;
+    private final DocumentBroadcaster broadcaster;
+    private final PresenceService presenceService;
+    private final SlowConsumerGuard slowConsumerGuard;
+
+    public MetricsController(DocumentShardExecutor shardExecutor, DocumentBroadcaster broadcaster,
+                             PresenceService presenceService, SlowConsumerGuard slowConsumerGuard) {
+        this.shardExecutor = shardExecutor;
+        this.broadcaster = broadcaster;
+        this.presenceService = presenceService;
+        this.slowConsumerGuard = slowConsumerGuard;
+    }
+
+    // Queue depth per document lane
+    @GetMapping("/shards")
+    public ResponseEntity<Map<String, Object>> getShardMetrics() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("shards", shardExecutor.getShardStats());
+        return ResponseEntity.ok(response);
+    }
+
+    // Edits received vs frames actually sent to /topic/doc/*
+    @GetMapping("/broadcast")
+    public ResponseEntity<Map<String, Object>> getBroadcastMetrics() {
+        return ResponseEntity.ok(broadcaster.getStats());
+    }
+
+    // Presence updates received vs published; the difference was superseded before it was sent
+    @GetMapping("/presence")
+    public ResponseEntity<Map<String, Object>> getPresenceMetrics() {
+        return ResponseEntity.ok(presenceService.getStats());
+    }
+
+    // Unwritten outbound bytes per WebSocket session, largest first
+    @GetMapping("/sessions")
+    public ResponseEntity<Map<String, Object>> getSessionMetrics(@RequestParam(defaultValue = "50") int limit) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("sessionCount", slowConsumerGuard.getSessionCount());
+        response.put("sessions", slowConsumerGuard.getSessionStats(limit));
+        return ResponseEntity.ok(response);
+    }
+}
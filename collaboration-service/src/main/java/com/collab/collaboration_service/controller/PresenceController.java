@@ -0,0 +1,54 @@
+package com.collab.collaboration_service.controller;
+
+import com.collab.collaboration_service.dto.PresenceMessage;
+import com.collab.collaboration_service.service.PresenceService;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.security.Principal;
+import java.util.List;
+
+@Controller
+@CrossOrigin(origins = "*")
+public class PresenceController {
+
+    private final PresenceService presenceService;
+
+    public PresenceController(PresenceService presenceService) {
+        this.presenceService = presenceService;
+    }
+
+    // Client sends cursor/selection to /app/doc/{docId}/presence; changes go out on /topic/doc/{docId}/presence
+    @MessageMapping("/doc/{docId}/presence")
+    public void updatePresence(@DestinationVariable Long docId, PresenceMessage message,
+                               @Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId,
+                               Principal user) {
+        if (user != null) {
+            // an authenticated session is its token's user; the name is not in the token, so clients look it up by id
+            message.setUserId(Long.valueOf(user.getName()));
+            message.setUsername(null);
+        }
+        presenceService.update(docId, sessionId, message);
+    }
+
+    // Client subscribes to /app/doc/{docId}/presence/snapshot once to see who is already there
+    @SubscribeMapping("/doc/{docId}/presence/snapshot")
+    public List<PresenceMessage> presenceSnapshot(@DestinationVariable Long docId) {
+        return presenceService.snapshot(docId);
+    }
+
+    // Same snapshot over HTTP, e.g. for a document list showing who is editing
+    @GetMapping("/collab/documents/{docId}/presence")
+    @ResponseBody
+    public List<PresenceMessage> getPresence(@PathVariable Long docId) {
+        return presenceService.snapshot(docId);
+    }
+}
@@ -1,24 +1,164 @@
 package com.collab.collaboration_service.controller;
 
+import com.collab.collaboration_service.codec.BinaryFrameCodec;
 import com.collab.collaboration_service.dto.CollaborationMessage;
+import com.collab.collaboration_service.ot.AppliedOperation;
+import com.collab.collaboration_service.ot.CollaborativeDocument;
+import com.collab.collaboration_service.ot.LoggedOperation;
+import com.collab.collaboration_service.ot.TextOperation;
+import com.collab.collaboration_service.service.DocumentBroadcaster;
+import com.collab.collaboration_service.service.DocumentShardExecutor;
+import com.collab.collaboration_service.service.OperationalTransformService;
 import org.springframework.messaging.handler.annotation.*;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.CrossOrigin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @Controller
+@CrossOrigin(origins = "*")
 public class RealtimeController {
     private final SimpMessagingTemplate messagingTemplate;
+    private final OperationalTransformService otService;
+    private final DocumentShardExecutor shardExecutor;
+    private final DocumentBroadcaster broadcaster;
 
-    public RealtimeController(SimpMessagingTemplate messagingTemplate) {
+    public RealtimeController(SimpMessagingTemplate messagingTemplate, OperationalTransformService otService,
+                              DocumentShardExecutor shardExecutor, DocumentBroadcaster broadcaster) {
         this.messagingTemplate = messagingTemplate;
+        this.otService = otService;
+        this.shardExecutor = shardExecutor;
+        this.broadcaster = broadcaster;
+    }
+
+    // Client subscribes to /app/doc/{docId}/snapshot once to get the content and revision to start from
+    @SubscribeMapping("/doc/{docId}/snapshot")
+    public CollaborationMessage snapshot(@DestinationVariable Long docId) {
+        CollaborativeDocument doc = otService.getDocument(docId);
+        CollaborationMessage snapshot = new CollaborationMessage();
+        snapshot.setOp("snapshot");
+        synchronized (doc) {
+            snapshot.setContent(doc.getContent());
+            snapshot.setRevision(doc.getRevision());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Resync after a reconnect: the client subscribes to /topic/doc/{docId} first, then to
+     * /app/doc/{docId}/since/{revision} with the last revision it applied. The reply is a "batch"
+     * of the operations it missed (with their clientIds, so it can find its own acks) or, when the
+     * operation log no longer reaches back that far, a fresh "snapshot". Topic frames at or below
+     * the reply's revision are then skipped.
+     */
+    @SubscribeMapping("/doc/{docId}/since/{revision}")
+    public CollaborationMessage resync(@DestinationVariable Long docId, @DestinationVariable int revision) {
+        CollaborativeDocument doc = otService.getDocument(docId);
+        Optional<List<LoggedOperation>> missed = doc.operationsSince(revision);
+        if (missed.isEmpty()) {
+            return snapshot(docId);
+        }
+        List<CollaborationMessage> messages = new ArrayList<>();
+        for (LoggedOperation logged : missed.get()) {
+            CollaborationMessage op = new CollaborationMessage();
+            op.setOp("ot");
+            op.setOps(logged.operation().toJson());
+            op.setRevision(logged.revision());
+            op.setClientId(logged.clientId());
+            messages.add(op);
+        }
+        CollaborationMessage reply = new CollaborationMessage();
+        reply.setOp("batch");
+        reply.setRevision(messages.isEmpty() ? revision : messages.get(messages.size() - 1).getRevision());
+        reply.setMessages(messages);
+        return reply;
     }
 
     // Client sends to /app/doc/{docId}/edit
     @MessageMapping("/doc/{docId}/edit")
-    public void handleEdit(@DestinationVariable Long docId, CollaborationMessage message) {
-        // Broadcast to topic /topic/doc/{docId}
-        messagingTemplate.convertAndSend("/topic/doc/" + docId, message);
-        // Optionally: persist minimal snapshot to Document Service to keep content eventually consistent
-        // e.g., call document-service PUT /documents/{docId} with content and userId
+    public void handleEdit(@DestinationVariable Long docId, CollaborationMessage message,
+                           @Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId) {
+        submitEdit(docId, message, sessionId);
+    }
+
+    // Same edit in the BinaryFrameCodec encoding, sent to /app/doc/{docId}/edit.bin
+    @MessageMapping("/doc/{docId}/edit.bin")
+    public void handleBinaryEdit(@DestinationVariable Long docId, @Payload byte[] frame,
+                                 @Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId) {
+        CollaborationMessage message;
+        try {
+            message = BinaryFrameCodec.decodeEdit(frame);
+        } catch (IllegalArgumentException e) {
+            sendError(sessionId, e.getMessage());
+            return;
+        }
+        submitEdit(docId, message, sessionId);
+    }
+
+    private void submitEdit(Long docId, CollaborationMessage message, String sessionId) {
+        try {
+            // the document's lane keeps its edits in order; other documents run on other lanes
+            shardExecutor.execute(docId, () -> {
+                try {
+                    applyEdit(docId, message);
+                } catch (IllegalArgumentException | IllegalStateException e) {
+                    // a malformed edit, or the document could not be loaded to apply it to
+                    sendError(sessionId, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            sendError(sessionId, "Document " + docId + " is busy, edit rejected");
+        }
+    }
+
+    private void applyEdit(Long docId, CollaborationMessage message) {
+        CollaborationMessage outbound = new CollaborationMessage();
+        outbound.setUserId(message.getUserId());
+        outbound.setUsername(message.getUsername());
+        outbound.setClientId(message.getClientId());
+
+        if ("full".equals(message.getOp())) {
+            // legacy clients still send the whole text; keep sending it to them as well
+            if (message.getContent() == null) {
+                throw new IllegalArgumentException("Full edit for document " + docId + " has no content");
+            }
+            AppliedOperation applied = otService.replaceContent(docId, message.getContent());
+            outbound.setOp("full");
+            outbound.setContent(message.getContent());
+            outbound.setOps(applied.operation().toJson());
+            outbound.setRevision(applied.revision());
+        } else {
+            if (message.getOps() == null) {
+                throw new IllegalArgumentException("Edit for document " + docId + " has no operations");
+            }
+            if (message.getRevision() == null) {
+                throw new IllegalArgumentException("Operation for document " + docId + " has no revision");
+            }
+            AppliedOperation applied = otService.applyOperation(
+                    docId, message.getRevision(), TextOperation.fromJson(message.getOps()), message.getClientId());
+            outbound.setOp("ot");
+            outbound.setOps(applied.operation().toJson());
+            outbound.setRevision(applied.revision());
+        }
+        // Broadcast to topic /topic/doc/{docId} (coalesced per window); the sender treats its own clientId as the ack
+        broadcaster.broadcast(docId, outbound);
+    }
+
+    // Rejected operations go back to the sender only (/user/queue/errors), who should resubscribe to the snapshot
+    private void sendError(String sessionId, String reason) {
+        CollaborationMessage error = new CollaborationMessage();
+        error.setOp("error");
+        error.setContent(reason);
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(sessionId);
+        headers.setLeaveMutable(true);
+        messagingTemplate.convertAndSendToUser(sessionId, "/queue/errors", error, headers.getMessageHeaders());
     }
 }
@@ -1,10 +1,16 @@
 package com.collab.collaboration_service.dto;
 
+import java.util.List;
+
 public class CollaborationMessage {
     private Long userId;
     private String username;
-    private String content; // the whole content or delta depending on approach
-    private String op; // optional: "patch" / "full"
+    private String content; // the whole content, only for "full" and "snapshot" messages
+    private String op; // "ot" (delta in ops) / "full" / "snapshot" / "error" / "batch"
+    private Integer revision; // revision the ops are based on (inbound) or produced (outbound)
+    private List<Object> ops; // ot.js style: n > 0 retain, n < 0 delete, "text" insert
+    private String clientId; // echoed back so the sender can recognise its own acknowledgement
+    private List<CollaborationMessage> messages; // "batch" only: edits coalesced into one frame, in revision order
     // getters/setters
     public Long getUserId() { return userId; }
     public void setUserId(Long userId) { this.userId = userId; }
@@ -14,4 +20,12 @@ public class CollaborationMessage {
     public void setContent(String content) { this.content = content; }
     public String getOp() { return op; }
     public void setOp(String op) { this.op = op; }
+    public Integer getRevision() { return revision; }
+    public void setRevision(Integer revision) { this.revision = revision; }
+    public List<Object> getOps() { return ops; }
+    public void setOps(List<Object> ops) { this.ops = ops; }
+    public String getClientId() { return clientId; }
+    public void setClientId(String clientId) { this.clientId = clientId; }
+    public List<CollaborationMessage> getMessages() { return messages; }
+    public void setMessages(List<CollaborationMessage> messages) { this.messages = messages; }
 }
@@ -0,0 +1,32 @@
+package com.collab.collaboration_service.dto;
+
+public class PresenceMessage {
+    private Long userId;
+    private String username;
+    private String clientId; // tells several tabs of the same user apart
+    private Integer cursor; // caret offset in the document
+    private Integer selectionStart;
+    private Integer selectionEnd;
+    private Integer revision; // document revision the offsets refer to
+    private String status; // "active" / "left", set by the server
+    private Long updatedAt; // server time of the last update, epoch millis
+    // getters/setters
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+    public String getClientId() { return clientId; }
+    public void setClientId(String clientId) { this.clientId = clientId; }
+    public Integer getCursor() { return cursor; }
+    public void setCursor(Integer cursor) { this.cursor = cursor; }
+    public Integer getSelectionStart() { return selectionStart; }
+    public void setSelectionStart(Integer selectionStart) { this.selectionStart = selectionStart; }
+    public Integer getSelectionEnd() { return selectionEnd; }
+    public void setSelectionEnd(Integer selectionEnd) { this.selectionEnd = selectionEnd; }
+    public Integer getRevision() { return revision; }
+    public void setRevision(Integer revision) { this.revision = revision; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public Long getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Long updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,7 @@
+package com.collab.collaboration_service.ot;
+
+/**
+ * An operation as it was applied on the server, and the document revision it produced.
+ */
+public record AppliedOperation(TextOperation operation, int revision) {
+}
@@ -0,0 +1,81 @@
+package com.collab.collaboration_service.ot;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Server-side authoritative state of one document: the current text, its
+ * revision and the most recent operations applied. Clients send operations
+ * together with the revision they were based on; anything that happened in
+ * between is transformed away before the operation is applied. Only the last
+ * {@code logCapacity} operations are kept, so a client further behind than
+ * that has to start again from a snapshot.
+ */
+public class CollaborativeDocument {
+
+    public static final int DEFAULT_LOG_CAPACITY = 1000;
+
+    private final Long documentId;
+    private String content;
+    private final OperationLog log;
+
+    public CollaborativeDocument(Long documentId, String content) {
+        this(documentId, content, DEFAULT_LOG_CAPACITY);
+    }
+
+    public CollaborativeDocument(Long documentId, String content, int logCapacity) {
+        this.documentId = documentId;
+        this.content = content != null ? content : "";
+        this.log = new OperationLog(logCapacity);
+    }
+
+    public AppliedOperation receive(int revision, TextOperation operation) {
+        return receive(revision, operation, null);
+    }
+
+    /**
+     * Transforms {@code operation} against every operation applied after
+     * {@code revision}, applies it and returns the transformed operation that
+     * must be broadcast to the other clients, tagged with the new revision.
+     */
+    public synchronized AppliedOperation receive(int revision, TextOperation operation, String clientId) {
+        if (!log.covers(revision)) {
+            throw new IllegalArgumentException("Operation revision " + revision + " not in history of document "
+                    + documentId + " (current revision " + log.getRevision() + ")");
+        }
+        for (LoggedOperation concurrent : log.since(revision)) {
+            operation = TextOperation.transform(operation, concurrent.operation())[0];
+        }
+        content = operation.apply(content);
+        log.append(operation, clientId);
+        return new AppliedOperation(operation, log.getRevision());
+    }
+
+    /**
+     * Replaces the whole content at the current revision, for clients that
+     * still send full snapshots. Recorded as a delete + insert so later
+     * operations can still be transformed against it.
+     */
+    public synchronized AppliedOperation replace(String newContent) {
+        TextOperation operation = new TextOperation()
+                .delete(content.length())
+                .insert(newContent != null ? newContent : "");
+        content = operation.apply(content);
+        log.append(operation, null);
+        return new AppliedOperation(operation, log.getRevision());
+    }
+
+    /**
+     * Operations a client at {@code revision} missed, or empty if the log no
+     * longer reaches back that far and the client needs a snapshot instead.
+     */
+    public synchronized Optional<List<LoggedOperation>> operationsSince(int revision) {
+        return log.covers(revision) ? Optional.of(log.since(revision)) : Optional.empty();
+    }
+
+    public Long getDocumentId() { return documentId; }
+
+    public synchronized String getContent() { return content; }
+
+    public synchronized int getRevision() { return log.getRevision(); }
+}
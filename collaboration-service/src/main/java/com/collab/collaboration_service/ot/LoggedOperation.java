@@ -0,0 +1,8 @@
+package com.collab.collaboration_service.ot;
+
+/**
+ * An operation as applied to the document, the revision it produced and the
+ * client that sent it, so a reconnecting client can recognise its own ack.
+ */
+public record LoggedOperation(TextOperation operation, int revision, String clientId) {
+}
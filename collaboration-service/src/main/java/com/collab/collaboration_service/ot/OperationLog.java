@@ -0,0 +1,58 @@
+package com.collab.collaboration_service.ot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-size ring buffer of the most recent operations of one document.
+ * Revision {@code r} (1-based, the revision an operation produced) lives in
+ * slot {@code (r - 1) % capacity}; anything older than the last
+ * {@code capacity} operations has been overwritten. Not thread-safe, guarded
+ * by {@link CollaborativeDocument}.
+ */
+public class OperationLog {
+
+    private final LoggedOperation[] ring;
+    // revision produced by the newest operation; 0 before the first one
+    private int revision;
+
+    public OperationLog(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Operation log capacity must be positive");
+        this.ring = new LoggedOperation[capacity];
+    }
+
+    public void append(TextOperation operation, String clientId) {
+        revision++;
+        ring[(revision - 1) % ring.length] = new LoggedOperation(operation, revision, clientId);
+    }
+
+    public int getRevision() {
+        return revision;
+    }
+
+    // Oldest base revision the log can still bring up to date
+    public int getOldestRevision() {
+        return Math.max(0, revision - ring.length);
+    }
+
+    public boolean covers(int baseRevision) {
+        return baseRevision >= getOldestRevision() && baseRevision <= revision;
+    }
+
+    /**
+     * Operations applied after {@code baseRevision}, oldest first.
+     *
+     * @throws IllegalArgumentException if the log no longer (or never) covers that revision
+     */
+    public List<LoggedOperation> since(int baseRevision) {
+        if (!covers(baseRevision)) {
+            throw new IllegalArgumentException("Revision " + baseRevision + " is outside the operation log ("
+                    + getOldestRevision() + ".." + revision + ")");
+        }
+        List<LoggedOperation> ops = new ArrayList<>(revision - baseRevision);
+        for (int r = baseRevision + 1; r <= revision; r++) {
+            ops.add(ring[(r - 1) % ring.length]);
+        }
+        return ops;
+    }
+}
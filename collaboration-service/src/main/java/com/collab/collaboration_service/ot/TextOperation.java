@@ -0,0 +1,264 @@
+package com.collab.collaboration_service.ot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A text operation is a sequence of retain / insert / delete components that
+ * walks over the whole document. It uses the same compact JSON form as ot.js:
+ * a positive integer retains that many characters, a negative integer deletes
+ * that many characters and a string is inserted at the current position.
+ */
+public class TextOperation {
+
+    private final List<Object> ops = new ArrayList<>();
+    // length of the document the operation applies to
+    private int baseLength;
+    // length of the document after the operation has been applied
+    private int targetLength;
+
+    public static boolean isRetain(Object op) { return op instanceof Integer && (Integer) op > 0; }
+    public static boolean isDelete(Object op) { return op instanceof Integer && (Integer) op < 0; }
+    public static boolean isInsert(Object op) { return op instanceof String; }
+
+    public List<Object> getOps() { return Collections.unmodifiableList(ops); }
+    public int getBaseLength() { return baseLength; }
+    public int getTargetLength() { return targetLength; }
+
+    public TextOperation retain(int n) {
+        if (n < 0) throw new IllegalArgumentException("retain expects a non-negative integer");
+        if (n == 0) return this;
+        baseLength += n;
+        targetLength += n;
+        int last = ops.size() - 1;
+        if (last >= 0 && isRetain(ops.get(last))) {
+            ops.set(last, (Integer) ops.get(last) + n);
+        } else {
+            ops.add(n);
+        }
+        return this;
+    }
+
+    public TextOperation insert(String str) {
+        if (str == null || str.isEmpty()) return this;
+        targetLength += str.length();
+        int last = ops.size() - 1;
+        if (last >= 0 && isInsert(ops.get(last))) {
+            ops.set(last, ops.get(last) + str);
+        } else if (last >= 0 && isDelete(ops.get(last))) {
+            // keep inserts in front of deletes so equivalent operations look the same
+            if (last > 0 && isInsert(ops.get(last - 1))) {
+                ops.set(last - 1, ops.get(last - 1) + str);
+            } else {
+                ops.add(last, str);
+            }
+        } else {
+            ops.add(str);
+        }
+        return this;
+    }
+
+    public TextOperation delete(int n) {
+        if (n < 0) n = -n;
+        if (n == 0) return this;
+        baseLength += n;
+        int last = ops.size() - 1;
+        if (last >= 0 && isDelete(ops.get(last))) {
+            ops.set(last, (Integer) ops.get(last) - n);
+        } else {
+            ops.add(-n);
+        }
+        return this;
+    }
+
+    public boolean isNoop() {
+        return ops.isEmpty() || (ops.size() == 1 && isRetain(ops.get(0)));
+    }
+
+    public String apply(String str) {
+        if (str.length() != baseLength) {
+            throw new IllegalArgumentException("The operation's base length must be equal to the string's length");
+        }
+        StringBuilder out = new StringBuilder(targetLength);
+        int index = 0;
+        for (Object op : ops) {
+            if (isRetain(op)) {
+                int n = (Integer) op;
+                out.append(str, index, index + n);
+                index += n;
+            } else if (isInsert(op)) {
+                out.append((String) op);
+            } else {
+                index -= (Integer) op;
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Combines this operation with one that directly follows it, so that
+     * {@code b.apply(a.apply(s))} equals {@code a.compose(b).apply(s)}.
+     */
+    public TextOperation compose(TextOperation other) {
+        if (targetLength != other.baseLength) {
+            throw new IllegalArgumentException("The base length of the second operation has to be the target length of the first operation");
+        }
+        TextOperation result = new TextOperation();
+        List<Object> ops1 = ops, ops2 = other.ops;
+        int i1 = 0, i2 = 0;
+        Object op1 = next(ops1, i1++), op2 = next(ops2, i2++);
+        while (op1 != null || op2 != null) {
+            if (isDelete(op1)) {
+                result.delete((Integer) op1);
+                op1 = next(ops1, i1++);
+                continue;
+            }
+            if (isInsert(op2)) {
+                result.insert((String) op2);
+                op2 = next(ops2, i2++);
+                continue;
+            }
+            if (op1 == null) throw new IllegalArgumentException("Cannot compose operations: first operation is too short");
+            if (op2 == null) throw new IllegalArgumentException("Cannot compose operations: first operation is too long");
+
+            if (isRetain(op1) && isRetain(op2)) {
+                int n1 = (Integer) op1, n2 = (Integer) op2;
+                result.retain(Math.min(n1, n2));
+                if (n1 > n2) { op1 = n1 - n2; op2 = next(ops2, i2++); }
+                else if (n1 == n2) { op1 = next(ops1, i1++); op2 = next(ops2, i2++); }
+                else { op2 = n2 - n1; op1 = next(ops1, i1++); }
+            } else if (isInsert(op1) && isDelete(op2)) {
+                String s1 = (String) op1;
+                int n2 = -(Integer) op2;
+                if (s1.length() > n2) { op1 = s1.substring(n2); op2 = next(ops2, i2++); }
+                else if (s1.length() == n2) { op1 = next(ops1, i1++); op2 = next(ops2, i2++); }
+                else { op2 = -(n2 - s1.length()); op1 = next(ops1, i1++); }
+            } else if (isInsert(op1) && isRetain(op2)) {
+                String s1 = (String) op1;
+                int n2 = (Integer) op2;
+                if (s1.length() > n2) { result.insert(s1.substring(0, n2)); op1 = s1.substring(n2); op2 = next(ops2, i2++); }
+                else if (s1.length() == n2) { result.insert(s1); op1 = next(ops1, i1++); op2 = next(ops2, i2++); }
+                else { result.insert(s1); op2 = n2 - s1.length(); op1 = next(ops1, i1++); }
+            } else if (isRetain(op1) && isDelete(op2)) {
+                int n1 = (Integer) op1, n2 = -(Integer) op2;
+                if (n1 > n2) { result.delete(n2); op1 = n1 - n2; op2 = next(ops2, i2++); }
+                else if (n1 == n2) { result.delete(n2); op1 = next(ops1, i1++); op2 = next(ops2, i2++); }
+                else { result.delete(n1); op2 = -(n2 - n1); op1 = next(ops1, i1++); }
+            } else {
+                throw new IllegalStateException("Unexpected components in compose: " + op1 + ", " + op2);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Transforms two concurrent operations {@code a} and {@code b} that apply to
+     * the same document into {@code [a', b']} such that
+     * {@code b'.apply(a.apply(s)) == a'.apply(b.apply(s))}. When both insert at
+     * the same position the insert of {@code a} goes first, so the incoming
+     * client operation is always passed as {@code a}.
+     */
+    public static TextOperation[] transform(TextOperation a, TextOperation b) {
+        if (a.baseLength != b.baseLength) {
+            throw new IllegalArgumentException("Both operations have to have the same base length");
+        }
+        TextOperation aPrime = new TextOperation();
+        TextOperation bPrime = new TextOperation();
+        List<Object> ops1 = a.ops, ops2 = b.ops;
+        int i1 = 0, i2 = 0;
+        Object op1 = next(ops1, i1++), op2 = next(ops2, i2++);
+        while (op1 != null || op2 != null) {
+            if (isInsert(op1)) {
+                aPrime.insert((String) op1);
+                bPrime.retain(((String) op1).length());
+                op1 = next(ops1, i1++);
+                continue;
+            }
+            if (isInsert(op2)) {
+                aPrime.retain(((String) op2).length());
+                bPrime.insert((String) op2);
+                op2 = next(ops2, i2++);
+                continue;
+            }
+            if (op1 == null) throw new IllegalArgumentException("Cannot transform operations: first operation is too short");
+            if (op2 == null) throw new IllegalArgumentException("Cannot transform operations: first operation is too long");
+
+            int minl;
+            if (isRetain(op1) && isRetain(op2)) {
+                int n1 = (Integer) op1, n2 = (Integer) op2;
+                if (n1 > n2) { minl = n2; op1 = n1 - n2; op2 = next(ops2, i2++); }
+                else if (n1 == n2) { minl = n2; op1 = next(ops1, i1++); op2 = next(ops2, i2++); }
+                else { minl = n1; op2 = n2 - n1; op1 = next(ops1, i1++); }
+                aPrime.retain(minl);
+                bPrime.retain(minl);
+            } else if (isDelete(op1) && isDelete(op2)) {
+                // both delete the same characters: nothing left to do for that range
+                int n1 = -(Integer) op1, n2 = -(Integer) op2;
+                if (n1 > n2) { op1 = -(n1 - n2); op2 = next(ops2, i2++); }
+                else if (n1 == n2) { op1 = next(ops1, i1++); op2 = next(ops2, i2++); }
+                else { op2 = -(n2 - n1); op1 = next(ops1, i1++); }
+            } else if (isDelete(op1) && isRetain(op2)) {
+                int n1 = -(Integer) op1, n2 = (Integer) op2;
+                if (n1 > n2) { minl = n2; op1 = -(n1 - n2); op2 = next(ops2, i2++); }
+                else if (n1 == n2) { minl = n2; op1 = next(ops1, i1++); op2 = next(ops2, i2++); }
+                else { minl = n1; op2 = n2 - n1; op1 = next(ops1, i1++); }
+                aPrime.delete(minl);
+            } else if (isRetain(op1) && isDelete(op2)) {
+                int n1 = (Integer) op1, n2 = -(Integer) op2;
+                if (n1 > n2) { minl = n2; op1 = n1 - n2; op2 = next(ops2, i2++); }
+                else if (n1 == n2) { minl = n1; op1 = next(ops1, i1++); op2 = next(ops2, i2++); }
+                else { minl = n1; op2 = -(n2 - n1); op1 = next(ops1, i1++); }
+                bPrime.delete(minl);
+            } else {
+                throw new IllegalStateException("Unexpected components in transform: " + op1 + ", " + op2);
+            }
+        }
+        return new TextOperation[] { aPrime, bPrime };
+    }
+
+    /**
+     * Builds an operation from its JSON form, e.g. {@code [3, "abc", -2, 7]}.
+     */
+    public static TextOperation fromJson(List<?> json) {
+        TextOperation op = new TextOperation();
+        if (json == null) return op;
+        for (Object component : json) {
+            if (component instanceof String s) {
+                op.insert(s);
+            } else if (component instanceof Number n) {
+                int value = n.intValue();
+                if (value > 0) op.retain(value);
+                else op.delete(value);
+            } else {
+                throw new IllegalArgumentException("Unknown operation component: " + component);
+            }
+        }
+        return op;
+    }
+
+    public List<Object> toJson() {
+        return new ArrayList<>(ops);
+    }
+
+    private static Object next(List<Object> ops, int index) {
+        return index < ops.size() ? ops.get(index) : null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TextOperation other)) return false;
+        return baseLength == other.baseLength && targetLength == other.targetLength && ops.equals(other.ops);
+    }
+
+    @Override
+    public int hashCode() {
+        return ops.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return ops.toString();
+    }
+}
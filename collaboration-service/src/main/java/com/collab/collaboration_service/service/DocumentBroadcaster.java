@@ -0,0 +1,121 @@
+package com.collab.collaboration_service.service;
+
+import com.collab.collaboration_service.codec.BinaryFrameCodec;
+import com.collab.collaboration_service.dto.CollaborationMessage;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces outbound edits per document. The first edit of a document opens a
+ * window of {@code collab.broadcast.window-ms}; everything applied to that
+ * document until the window closes goes out as a single "batch" frame on
+ * /topic/doc/{docId}, so a fast typist costs each subscriber one frame per
+ * window instead of one per keystroke.
+ *
+ * The batched messages are not composed into one operation: every sender
+ * still needs one acknowledgement (its clientId) per operation it sent.
+ * A frame is only serialized while the document has subscribers, and its
+ * {@link BinaryFrameCodec} form is only produced for /topic/doc/{docId}/bin
+ * while someone is subscribed there ({@link DocumentSubscriptionIndex}).
+ */
+@Component
+public class DocumentBroadcaster {
+
+    private final FramePublisher framePublisher;
+    private final DocumentSubscriptionIndex subscriptionIndex;
+    private final long windowMs;
+    private final boolean binaryEnabled;
+    private final Map<Long, List<CollaborationMessage>> pending = new ConcurrentHashMap<>();
+    // single thread: flushes of one document never overtake each other
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "doc-broadcast"));
+
+    private final AtomicLong messagesIn = new AtomicLong();
+    private final AtomicLong framesOut = new AtomicLong();
+
+    public DocumentBroadcaster(FramePublisher framePublisher, DocumentSubscriptionIndex subscriptionIndex,
+                               @Value("${collab.broadcast.window-ms:25}") long windowMs,
+                               @Value("${collab.wire.binary-enabled:true}") boolean binaryEnabled) {
+        this.framePublisher = framePublisher;
+        this.subscriptionIndex = subscriptionIndex;
+        this.windowMs = windowMs;
+        this.binaryEnabled = binaryEnabled;
+    }
+
+    public void broadcast(Long docId, CollaborationMessage message) {
+        messagesIn.incrementAndGet();
+        if (windowMs <= 0) {
+            send(docId, message);
+            return;
+        }
+        boolean[] opened = new boolean[1];
+        pending.compute(docId, (id, batch) -> {
+            if (batch == null) {
+                batch = new ArrayList<>();
+                opened[0] = true;
+            }
+            batch.add(message);
+            return batch;
+        });
+        if (opened[0]) {
+            scheduler.schedule(() -> flush(docId), windowMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void flush(Long docId) {
+        List<CollaborationMessage> batch = pending.remove(docId);
+        if (batch == null) return;
+        try {
+            if (batch.size() == 1) {
+                send(docId, batch.get(0));
+            } else {
+                CollaborationMessage frame = new CollaborationMessage();
+                frame.setOp("batch");
+                frame.setRevision(batch.get(batch.size() - 1).getRevision());
+                frame.setMessages(batch);
+                send(docId, frame);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Failed to broadcast " + batch.size() + " edits of document " + docId + ": " + e.getMessage());
+        }
+    }
+
+    private void send(Long docId, CollaborationMessage message) {
+        if (!subscriptionIndex.hasSubscribers(docId)) return;
+        framesOut.incrementAndGet();
+        // each encoding is produced once per frame; every subscriber of it gets the same bytes
+        framePublisher.publishJson("/topic/doc/" + docId, message);
+        if (binaryEnabled && subscriptionIndex.hasBinarySubscribers(docId)) {
+            framePublisher.publish("/topic/doc/" + docId + "/bin", BinaryFrameCodec.encode(message),
+                    MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("windowMs", windowMs);
+        stats.put("messagesIn", messagesIn.get());
+        stats.put("framesOut", framesOut.get());
+        stats.put("pendingDocuments", pending.size());
+        stats.put("subscribedDocuments", subscriptionIndex.documentCount());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        pending.keySet().forEach(this::flush);
+    }
+}
@@ -0,0 +1,42 @@
+package com.collab.collaboration_service.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Map;
+
+/**
+ * Reads a document's persisted content from document-service to seed its
+ * collaborative state.
+ */
+@Component
+public class DocumentContentLoader {
+
+    private final RestTemplate restTemplate;
+    private final String documentServiceUrl;
+
+    public DocumentContentLoader(RestTemplate restTemplate,
+                                 @Value("${document.service.url:http://localhost:8082}") String documentServiceUrl) {
+        this.restTemplate = restTemplate;
+        this.documentServiceUrl = documentServiceUrl;
+    }
+
+    /**
+     * Throws {@link IllegalStateException} when the document cannot be read, rather than
+     * returning empty text that edits would then be based on.
+     */
+    public String load(Long docId) {
+        Map<?, ?> doc;
+        try {
+            doc = restTemplate.getForObject(documentServiceUrl + "/documents/" + docId, Map.class);
+        } catch (Exception e) {
+            throw new IllegalStateException("Document " + docId + " could not be loaded: " + e.getMessage(), e);
+        }
+        if (doc == null) {
+            throw new IllegalStateException("Document " + docId + " could not be loaded: empty response");
+        }
+        Object content = doc.get("content");
+        return content != null ? content.toString() : "";
+    }
+}
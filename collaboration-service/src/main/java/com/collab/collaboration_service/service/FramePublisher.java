@@ -0,0 +1,52 @@
+package com.collab.collaboration_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Publishes broadcast frames as ready-made byte[] messages. The payload is
+ * serialized exactly once here and the broker hands that same array to every
+ * subscriber session, which then only adds its STOMP headers around it,
+ * instead of the payload going through the message converter chain on each
+ * convertAndSend.
+ */
+@Component
+public class FramePublisher {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+
+    public FramePublisher(SimpMessagingTemplate messagingTemplate, ObjectMapper objectMapper) {
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public void publishJson(String destination, Object payload) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize frame for " + destination, e);
+        }
+        publish(destination, body, MimeTypeUtils.APPLICATION_JSON);
+    }
+
+    public void publish(String destination, byte[] body, MimeType contentType) {
+        messagingTemplate.send(destination, frame(body, contentType));
+    }
+
+    private static Message<byte[]> frame(byte[] body, MimeType contentType) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setContentType(contentType);
+        headers.setLeaveMutable(true); // the template still sets the destination
+        return MessageBuilder.createMessage(body, headers.getMessageHeaders());
+    }
+}
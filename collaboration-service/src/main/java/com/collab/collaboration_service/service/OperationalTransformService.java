@@ -0,0 +1,100 @@
+package com.collab.collaboration_service.service;
+
+import com.collab.collaboration_service.ot.AppliedOperation;
+import com.collab.collaboration_service.ot.CollaborativeDocument;
+import com.collab.collaboration_service.ot.TextOperation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Open documents and their operation logs. A document is loaded from
+ * document-service on first use and dropped again once nobody on this
+ * instance is subscribed to it and it has not been used for
+ * {@code collab.ot.idle-evict-ms}; it is reloaded if someone opens it later.
+ * A document whose load fails is not kept, so the next use tries again instead
+ * of editing an empty copy.
+ */
+@Service
+public class OperationalTransformService {
+
+    private final Map<Long, CollaborativeDocument> documents = new ConcurrentHashMap<>();
+    // docId -> last time the document was handed out, in ms
+    private final Map<Long, Long> lastUsed = new ConcurrentHashMap<>();
+    private final DocumentSubscriptionIndex subscriptionIndex;
+    private final DocumentShardExecutor shardExecutor;
+    private final DocumentContentLoader loader;
+    private final long idleEvictMs;
+
+    // operations kept per document for transforming late edits and resyncing reconnecting clients
+    @Value("${collab.ot.log-capacity:1000}")
+    private int logCapacity = CollaborativeDocument.DEFAULT_LOG_CAPACITY;
+
+    public OperationalTransformService(DocumentSubscriptionIndex subscriptionIndex, DocumentShardExecutor shardExecutor,
+                                       DocumentContentLoader loader,
+                                       @Value("${collab.ot.idle-evict-ms:60000}") long idleEvictMs) {
+        this.subscriptionIndex = subscriptionIndex;
+        this.shardExecutor = shardExecutor;
+        this.loader = loader;
+        this.idleEvictMs = idleEvictMs;
+    }
+
+    // Apply a client operation that was based on the given revision
+    public AppliedOperation applyOperation(Long docId, int revision, TextOperation operation, String clientId) {
+        return getDocument(docId).receive(revision, operation, clientId);
+    }
+
+    // Legacy "full" edits replace the whole text at the current revision
+    public AppliedOperation replaceContent(Long docId, String content) {
+        return getDocument(docId).replace(content);
+    }
+
+    // Throws IllegalStateException when the document is not open and cannot be loaded
+    public CollaborativeDocument getDocument(Long docId) {
+        CollaborativeDocument doc = documents.get(docId);
+        if (doc != null) {
+            lastUsed.put(docId, System.currentTimeMillis());
+            return doc;
+        }
+        // loaded outside the map so a slow document-service doesn't block other documents; a losing racer's copy is dropped
+        CollaborativeDocument loaded = new CollaborativeDocument(docId, loader.load(docId), logCapacity);
+        lastUsed.put(docId, System.currentTimeMillis());
+        CollaborativeDocument existing = documents.putIfAbsent(docId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    // Only documents someone is editing; nothing is loaded
+    public Optional<CollaborativeDocument> findOpen(Long docId) {
+        return Optional.ofNullable(documents.get(docId));
+    }
+
+    @Scheduled(fixedDelayString = "${collab.ot.evict-interval-ms:30000}")
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        for (Long docId : new ArrayList<>(documents.keySet())) {
+            if (!isIdle(docId, now)) continue;
+            try {
+                // on the document's lane, so an edit queued before the eviction still sees the loaded document
+                shardExecutor.execute(docId, () -> {
+                    if (isIdle(docId, System.currentTimeMillis())) {
+                        documents.remove(docId);
+                        lastUsed.remove(docId);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // lane is busy; try again on the next sweep
+            }
+        }
+    }
+
+    private boolean isIdle(Long docId, long now) {
+        Long used = lastUsed.get(docId);
+        return !subscriptionIndex.hasLocalSubscribers(docId) && (used == null || now - used >= idleEvictMs);
+    }
+}
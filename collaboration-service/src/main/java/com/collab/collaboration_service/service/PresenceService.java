@@ -0,0 +1,127 @@
+package com.collab.collaboration_service.service;
+
+import com.collab.collaboration_service.dto.PresenceMessage;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Who is in each document and where their cursor is. Purely in memory and
+ * last-value-only: a newer update from a session overwrites the older one
+ * before it is ever sent, so under load stale cursors are dropped instead of
+ * queuing. Changes are published at most once per
+ * {@code collab.presence.interval-ms} per document on
+ * /topic/doc/{docId}/presence, separate from the edit stream.
+ */
+@Service
+public class PresenceService {
+
+    private final FramePublisher framePublisher;
+    // docId -> WebSocket session id -> latest state
+    private final Map<Long, Map<String, PresenceMessage>> presence = new ConcurrentHashMap<>();
+    // docId -> sessions whose state changed since the last publish
+    private final Map<Long, Set<String>> dirty = new ConcurrentHashMap<>();
+    // WebSocket session id -> documents it reported presence in
+    private final Map<String, Set<Long>> sessionDocuments = new ConcurrentHashMap<>();
+
+    private final AtomicLong updatesIn = new AtomicLong();
+    private final AtomicLong updatesOut = new AtomicLong();
+
+    public PresenceService(FramePublisher framePublisher) {
+        this.framePublisher = framePublisher;
+    }
+
+    public void update(Long docId, String sessionId, PresenceMessage update) {
+        updatesIn.incrementAndGet();
+        update.setStatus("active");
+        update.setUpdatedAt(System.currentTimeMillis());
+        // compute keeps this atomic with the removal of an emptied document in publish()
+        presence.compute(docId, (id, states) -> {
+            if (states == null) states = new ConcurrentHashMap<>();
+            states.put(sessionId, update);
+            return states;
+        });
+        sessionDocuments.computeIfAbsent(sessionId, id -> ConcurrentHashMap.newKeySet()).add(docId);
+        dirty.computeIfAbsent(docId, id -> ConcurrentHashMap.newKeySet()).add(sessionId);
+    }
+
+    public List<PresenceMessage> snapshot(Long docId) {
+        Map<String, PresenceMessage> states = presence.get(docId);
+        if (states == null) return List.of();
+        List<PresenceMessage> active = new ArrayList<>();
+        for (PresenceMessage state : states.values()) {
+            if ("active".equals(state.getStatus())) active.add(state);
+        }
+        return active;
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Set<Long> docIds = sessionDocuments.remove(event.getSessionId());
+        if (docIds == null) return;
+        for (Long docId : docIds) {
+            // published once as "left", then dropped by publish(); computeIfPresent keeps the read and the write
+            // atomic with update() and with publish() removing the emptied document
+            Map<String, PresenceMessage> states = presence.computeIfPresent(docId, (id, current) -> {
+                PresenceMessage last = current.get(event.getSessionId());
+                if (last != null) current.put(event.getSessionId(), left(last));
+                return current;
+            });
+            if (states == null || !states.containsKey(event.getSessionId())) continue;
+            dirty.computeIfAbsent(docId, id -> ConcurrentHashMap.newKeySet()).add(event.getSessionId());
+        }
+    }
+
+    private static PresenceMessage left(PresenceMessage last) {
+        PresenceMessage left = new PresenceMessage();
+        left.setUserId(last.getUserId());
+        left.setUsername(last.getUsername());
+        left.setClientId(last.getClientId());
+        left.setStatus("left");
+        left.setUpdatedAt(System.currentTimeMillis());
+        return left;
+    }
+
+    @Scheduled(fixedDelayString = "${collab.presence.interval-ms:100}")
+    public void publish() {
+        for (Long docId : dirty.keySet()) {
+            Set<String> changed = dirty.remove(docId);
+            Map<String, PresenceMessage> states = presence.get(docId);
+            if (changed == null || states == null) continue;
+            List<PresenceMessage> frame = new ArrayList<>();
+            for (String sessionId : changed) {
+                PresenceMessage state = states.get(sessionId);
+                if (state == null) continue;
+                frame.add(state);
+                if ("left".equals(state.getStatus())) {
+                    states.remove(sessionId, state);
+                }
+            }
+            presence.computeIfPresent(docId, (id, current) -> current.isEmpty() ? null : current);
+            if (frame.isEmpty()) continue;
+            try {
+                framePublisher.publishJson("/topic/doc/" + docId + "/presence", frame);
+                updatesOut.addAndGet(frame.size());
+            } catch (RuntimeException e) {
+                System.err.println("Failed to publish presence of document " + docId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("documents", presence.size());
+        stats.put("updatesIn", updatesIn.get());
+        stats.put("updatesOut", updatesOut.get());
+        return stats;
+    }
+}
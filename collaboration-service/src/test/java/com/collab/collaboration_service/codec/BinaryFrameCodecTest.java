@@ -0,0 +1,119 @@
+package com.collab.collaboration_service.codec;
+
+import com.collab.collaboration_service.dto.CollaborationMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryFrameCodecTest {
+
+    @Test
+    void testOperationRoundTrip() {
+        CollaborationMessage message = new CollaborationMessage();
+        message.setOp("ot");
+        message.setUserId(300L);
+        message.setUsername("alice");
+        message.setRevision(12345);
+        message.setClientId("c-1");
+        message.setOps(List.of(5, "héllo ✓", -3, 200));
+
+        CollaborationMessage decoded = BinaryFrameCodec.decode(BinaryFrameCodec.encode(message));
+
+        assertEquals("ot", decoded.getOp());
+        assertEquals(300L, decoded.getUserId());
+        assertNull(decoded.getUsername());
+        assertEquals(12345, decoded.getRevision());
+        assertEquals("c-1", decoded.getClientId());
+        assertEquals(List.of(5, "héllo ✓", -3, 200), decoded.getOps());
+        assertNull(decoded.getContent());
+    }
+
+    @Test
+    void testBatchRoundTrip() {
+        CollaborationMessage first = new CollaborationMessage();
+        first.setOp("full");
+        first.setContent("abc");
+        first.setRevision(1);
+        CollaborationMessage second = new CollaborationMessage();
+        second.setOp("ot");
+        second.setOps(List.of(3, "d"));
+        second.setRevision(2);
+        CollaborationMessage batch = new CollaborationMessage();
+        batch.setOp("batch");
+        batch.setRevision(2);
+        batch.setMessages(List.of(first, second));
+
+        CollaborationMessage decoded = BinaryFrameCodec.decode(BinaryFrameCodec.encode(batch));
+
+        assertEquals("batch", decoded.getOp());
+        assertEquals(2, decoded.getMessages().size());
+        assertEquals("abc", decoded.getMessages().get(0).getContent());
+        assertEquals(List.of(3, "d"), decoded.getMessages().get(1).getOps());
+    }
+
+    @Test
+    void testSmallerThanJson() throws Exception {
+        CollaborationMessage message = new CollaborationMessage();
+        message.setOp("ot");
+        message.setUserId(42L);
+        message.setUsername("someone@example.com");
+        message.setRevision(1000);
+        message.setClientId("tab-7f3a");
+        message.setOps(List.of(1500, "x", 2500));
+
+        byte[] binary = BinaryFrameCodec.encode(message);
+        byte[] json = new ObjectMapper().writeValueAsBytes(message);
+
+        assertTrue(binary.length * 4 < json.length, binary.length + " vs " + json.length);
+    }
+
+    @Test
+    void testMalformedFramesAreRejected() {
+        CollaborationMessage message = new CollaborationMessage();
+        message.setOp("ot");
+        message.setOps(List.of(3, "abc"));
+        byte[] frame = BinaryFrameCodec.encode(message);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryFrameCodec.decode(Arrays.copyOf(frame, frame.length - 1)));
+        assertThrows(IllegalArgumentException.class, () -> BinaryFrameCodec.decode(new byte[] { 9, 0, 0 }));
+        assertThrows(IllegalArgumentException.class, () -> BinaryFrameCodec.decode(new byte[0]));
+        // revision of 2^40 does not fit an int
+        assertThrows(IllegalArgumentException.class, () -> BinaryFrameCodec.decode(new byte[] {
+                BinaryFrameCodec.VERSION, 0, 1 << 1, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x20 }));
+    }
+
+    @Test
+    void testNestingIsLimited() {
+        CollaborationMessage edit = new CollaborationMessage();
+        edit.setOp("ot");
+        edit.setOps(List.of(1, "x"));
+        CollaborationMessage batch = new CollaborationMessage();
+        batch.setOp("batch");
+        batch.setMessages(List.of(edit));
+
+        byte[] frame = BinaryFrameCodec.encode(batch);
+        assertEquals(1, BinaryFrameCodec.decode(frame).getMessages().size());
+        // edits from clients never carry nested messages
+        assertThrows(IllegalArgumentException.class, () -> BinaryFrameCodec.decodeEdit(frame));
+
+        CollaborationMessage outer = new CollaborationMessage();
+        outer.setOp("batch");
+        outer.setMessages(List.of(batch));
+        assertThrows(IllegalArgumentException.class, () -> BinaryFrameCodec.encode(outer));
+
+        // a deep chain of batch headers is rejected up front instead of recursing
+        byte[] deep = new byte[1 + 3 * 10_000];
+        deep[0] = BinaryFrameCodec.VERSION;
+        for (int i = 1; i < deep.length; i += 3) {
+            deep[i] = 4;
+            deep[i + 1] = 1 << 5;
+            deep[i + 2] = 1;
+        }
+        assertThrows(IllegalArgumentException.class, () -> BinaryFrameCodec.decode(deep));
+    }
+}
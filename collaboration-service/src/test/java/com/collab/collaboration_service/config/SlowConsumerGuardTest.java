@@ -0,0 +1,150 @@
+package com.collab.collaboration_service.config;
+
+import com.collab.collaboration_service.ot.CollaborativeDocument;
+import com.collab.collaboration_service.service.OperationalTransformService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class SlowConsumerGuardTest {
+
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final OperationalTransformService otService = mock(OperationalTransformService.class);
+    private final WebSocketHandler handler = mock(WebSocketHandler.class);
+    private final WebSocketSession session = mock(WebSocketSession.class);
+    private WebSocketSession countingSession;
+
+    @BeforeEach
+    void setUp() {
+        when(session.getId()).thenReturn("s1");
+        when(otService.getDocument(1L)).thenReturn(new CollaborativeDocument(1L, "hello"));
+    }
+
+    @Test
+    void testSlowSessionIsResyncedWithSnapshotOnceDrained() throws Exception {
+        SlowConsumerGuard guard = connect("resync");
+
+        assertNotNull(guard.preSend(frame("/topic/doc/1", 40), null));
+        assertNotNull(guard.preSend(frame("/topic/doc/1", 40), null));
+        // over 100 buffered bytes: dropped, and every later frame of that document too
+        assertNull(guard.preSend(frame("/topic/doc/1", 40), null));
+        assertNull(guard.preSend(frame("/topic/doc/1", 1), null));
+        // other destinations still flow
+        assertNotNull(guard.preSend(frame("/user/queue/errors", 1), null));
+        assertEquals(2L, stat(guard).get("droppedFrames"));
+
+        countingSession.sendMessage(new TextMessage("MESSAGE\ndestination:/topic/doc/1\n\n..."));
+        verify(messagingTemplate, never()).convertAndSendToUser(anyString(), anyString(), any(), any(Map.class));
+        countingSession.sendMessage(new TextMessage("MESSAGE\ndestination:/topic/doc/1\n\n..."));
+
+        ArgumentCaptor<Object> snapshot = ArgumentCaptor.forClass(Object.class);
+        // sent from the resync thread, not the one writing to the socket
+        verify(messagingTemplate, timeout(5000)).convertAndSendToUser(eq("s1"), eq("/queue/doc/1/resync"), snapshot.capture(), any(Map.class));
+        assertNotNull(snapshot.getValue());
+        assertNotNull(guard.preSend(frame("/topic/doc/1", 1), null));
+    }
+
+    @Test
+    void testDisconnectPolicyClosesSession() throws Exception {
+        SlowConsumerGuard guard = connect("disconnect");
+
+        guard.preSend(frame("/topic/doc/1", 90), null);
+        assertNull(guard.preSend(frame("/topic/doc/1", 90), null));
+        assertNull(guard.preSend(frame("/topic/doc/1", 90), null));
+
+        verify(session, times(1)).close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    @Test
+    void testTextPayloadsAreCounted() throws Exception {
+        SlowConsumerGuard guard = connect("resync");
+
+        assertNotNull(guard.preSend(textFrame("/topic/doc/1", "x".repeat(90)), null));
+        assertNull(guard.preSend(textFrame("/topic/doc/1", "x".repeat(20)), null));
+        assertEquals(90L, stat(guard).get("bufferedBytes"));
+    }
+
+    @Test
+    void testTextPayloadsAreCountedInUtf8Bytes() throws Exception {
+        SlowConsumerGuard guard = connect("resync");
+
+        // 30 chars, 90 bytes
+        assertNotNull(guard.preSend(textFrame("/topic/doc/1", "\u20ac".repeat(30)), null));
+        assertEquals(90L, stat(guard).get("bufferedBytes"));
+        assertNull(guard.preSend(textFrame("/topic/doc/1", "\uD83D\uDE00".repeat(3)), null));
+    }
+
+    @Test
+    void testPresenceIsDroppedWithoutClosingSession() throws Exception {
+        SlowConsumerGuard guard = connect("disconnect");
+
+        assertNotNull(guard.preSend(frame("/topic/doc/1", 90), null));
+        assertNull(guard.preSend(frame("/topic/doc/1/presence", 20), null));
+
+        verify(session, never()).close(any());
+        assertNull(guard.preSend(frame("/topic/doc/1", 20), null));
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    @Test
+    void testClosedSessionIsForgotten() throws Exception {
+        SlowConsumerGuard guard = connect("resync");
+        guard.decorate(handler).afterConnectionClosed(session, CloseStatus.NORMAL);
+
+        assertEquals(0, guard.getSessionCount());
+        assertNotNull(guard.preSend(frame("/topic/doc/1", 1000), null));
+    }
+
+    @SuppressWarnings("unchecked")
+    private SlowConsumerGuard connect(String policy) throws Exception {
+        ObjectProvider<SimpMessagingTemplate> templateProvider = mock(ObjectProvider.class);
+        when(templateProvider.getObject()).thenReturn(messagingTemplate);
+        ObjectProvider<OperationalTransformService> otProvider = mock(ObjectProvider.class);
+        when(otProvider.getObject()).thenReturn(otService);
+        SlowConsumerGuard guard = new SlowConsumerGuard(100, 10, policy, templateProvider, otProvider);
+
+        guard.decorate(handler).afterConnectionEstablished(session);
+        ArgumentCaptor<WebSocketSession> decorated = ArgumentCaptor.forClass(WebSocketSession.class);
+        verify(handler).afterConnectionEstablished(decorated.capture());
+        countingSession = decorated.getValue();
+        return guard;
+    }
+
+    private Map<String, Object> stat(SlowConsumerGuard guard) {
+        return guard.getSessionStats(1).get(0);
+    }
+
+    private Message<String> textFrame(String destination, String payload) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId("s1");
+        headers.setDestination(destination);
+        headers.setLeaveMutable(true);
+        return MessageBuilder.createMessage(payload, headers.getMessageHeaders());
+    }
+
+    private Message<byte[]> frame(String destination, int size) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId("s1");
+        headers.setDestination(destination);
+        headers.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[size], headers.getMessageHeaders());
+    }
+}
@@ -0,0 +1,67 @@
+package com.collab.collaboration_service.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StompAuthInterceptorTest {
+
+    private static final Instant NOW = Instant.parse("2024-06-10T12:00:00Z");
+
+    private final StompAuthInterceptor interceptor =
+            new StompAuthInterceptor("secret", true, Clock.fixed(NOW, ZoneOffset.UTC));
+
+    @Test
+    void testValidTokenBecomesSessionUser() throws Exception {
+        Message<?> message = interceptor.preSend(connect("Bearer " + token("secret", 7L, NOW.getEpochSecond() + 60)), null);
+
+        assertEquals("7", StompHeaderAccessor.wrap(message).getUser().getName());
+    }
+
+    @Test
+    void testMissingForgedOrExpiredTokensAreRejected() throws Exception {
+        assertThrows(MessageDeliveryException.class, () -> interceptor.preSend(connect(null), null));
+        assertThrows(MessageDeliveryException.class,
+                () -> interceptor.preSend(connect("Bearer " + token("other", 7L, NOW.getEpochSecond() + 60)), null));
+        assertThrows(MessageDeliveryException.class,
+                () -> interceptor.preSend(connect("Bearer " + token("secret", 7L, NOW.getEpochSecond() - 1)), null));
+    }
+
+    @Test
+    void testOptionalModeLetsAnonymousSessionsIn() {
+        StompAuthInterceptor optional = new StompAuthInterceptor("secret", false, Clock.fixed(NOW, ZoneOffset.UTC));
+
+        Message<?> message = optional.preSend(connect(null), null);
+
+        assertNull(StompHeaderAccessor.wrap(message).getUser());
+    }
+
+    private static Message<byte[]> connect(String authorization) {
+        StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.CONNECT);
+        if (authorization != null) headers.addNativeHeader("Authorization", authorization);
+        headers.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+    }
+
+    // Signed the way the gateway's TokenService signs
+    private static String token(String secret, Long userId, long expiresAt) throws Exception {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String payload = encoder.encodeToString((userId + ":" + expiresAt).getBytes(StandardCharsets.UTF_8));
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return payload + "." + encoder.encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+    }
+}
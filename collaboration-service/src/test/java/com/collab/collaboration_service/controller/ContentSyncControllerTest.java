@@ -0,0 +1,82 @@
+package com.collab.collaboration_service.controller;
+
+import com.collab.collaboration_service.dto.CollaborationMessage;
+import com.collab.collaboration_service.service.DocumentBroadcaster;
+import com.collab.collaboration_service.service.DocumentContentLoader;
+import com.collab.collaboration_service.service.DocumentShardExecutor;
+import com.collab.collaboration_service.service.DocumentSubscriptionIndex;
+import com.collab.collaboration_service.service.OperationalTransformService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ContentSyncControllerTest {
+
+    private final DocumentShardExecutor shardExecutor = mock(DocumentShardExecutor.class);
+    private final DocumentBroadcaster broadcaster = mock(DocumentBroadcaster.class);
+    private final DocumentContentLoader loader = mock(DocumentContentLoader.class);
+    private final OperationalTransformService otService = new OperationalTransformService(
+            mock(DocumentSubscriptionIndex.class), shardExecutor, loader, 60000);
+
+    @BeforeEach
+    void setUp() {
+        when(loader.load(1L)).thenReturn("abc");
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(1)).run();
+            return null;
+        }).when(shardExecutor).execute(any(), any(Runnable.class));
+        otService.getDocument(1L);
+    }
+
+    @Test
+    void testTokenIsRequiredWhenConfigured() {
+        ContentSyncController controller = controller("s3cret");
+
+        assertEquals(HttpStatus.FORBIDDEN, controller.replaceContent(1L, content("xyz"), null, from("127.0.0.1")).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN, controller.replaceContent(1L, content("xyz"), "wrong", from("127.0.0.1")).getStatusCode());
+        assertEquals("abc", otService.getDocument(1L).getContent());
+
+        assertEquals(HttpStatus.ACCEPTED, controller.replaceContent(1L, content("xyz"), "s3cret", from("10.0.0.5")).getStatusCode());
+        assertEquals("xyz", otService.getDocument(1L).getContent());
+        verify(broadcaster).broadcast(eq(1L), argThat(m -> "full".equals(m.getOp()) && "xyz".equals(m.getContent())));
+    }
+
+    @Test
+    void testOnlyLocalCallersWithoutToken() {
+        ContentSyncController controller = controller("");
+
+        assertEquals(HttpStatus.FORBIDDEN, controller.replaceContent(1L, content("xyz"), null, from("10.0.0.5")).getStatusCode());
+        assertEquals(HttpStatus.ACCEPTED, controller.replaceContent(1L, content("xyz"), null, from("127.0.0.1")).getStatusCode());
+        assertEquals("xyz", otService.getDocument(1L).getContent());
+    }
+
+    @Test
+    void testDocumentsNotOpenAreLeftAlone() {
+        ContentSyncController controller = controller("");
+
+        assertEquals(HttpStatus.NO_CONTENT, controller.replaceContent(2L, content("xyz"), null, from("::1")).getStatusCode());
+        verify(loader, never()).load(2L);
+    }
+
+    private ContentSyncController controller(String token) {
+        return new ContentSyncController(otService, shardExecutor, broadcaster, token);
+    }
+
+    private static CollaborationMessage content(String content) {
+        CollaborationMessage message = new CollaborationMessage();
+        message.setContent(content);
+        return message;
+    }
+
+    private static HttpServletRequest from(String remoteAddr) {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getRemoteAddr()).thenReturn(remoteAddr);
+        return request;
+    }
+}
@@ -0,0 +1,33 @@
+package com.collab.collaboration_service.controller;
+
+import com.collab.collaboration_service.dto.PresenceMessage;
+import com.collab.collaboration_service.service.FramePublisher;
+import com.collab.collaboration_service.service.PresenceService;
+import org.junit.jupiter.api.Test;
+
+import java.security.Principal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class PresenceControllerTest {
+
+    private final PresenceService presenceService = new PresenceService(mock(FramePublisher.class));
+    private final PresenceController controller = new PresenceController(presenceService);
+
+    @Test
+    void testAuthenticatedSessionCannotClaimAnotherUser() {
+        PresenceMessage message = new PresenceMessage();
+        message.setUserId(1L);
+        message.setUsername("admin");
+        message.setCursor(3);
+        Principal user = () -> "7";
+
+        controller.updatePresence(1L, message, "s1", user);
+
+        PresenceMessage state = presenceService.snapshot(1L).get(0);
+        assertEquals(7L, state.getUserId());
+        assertNull(state.getUsername());
+        assertEquals(3, state.getCursor());
+    }
+}
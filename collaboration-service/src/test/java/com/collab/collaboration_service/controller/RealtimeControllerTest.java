@@ -0,0 +1,116 @@
+package com.collab.collaboration_service.controller;
+
+import com.collab.collaboration_service.dto.CollaborationMessage;
+import com.collab.collaboration_service.service.DocumentBroadcaster;
+import com.collab.collaboration_service.service.DocumentContentLoader;
+import com.collab.collaboration_service.service.DocumentShardExecutor;
+import com.collab.collaboration_service.service.DocumentSubscriptionIndex;
+import com.collab.collaboration_service.service.OperationalTransformService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class RealtimeControllerTest {
+
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final DocumentShardExecutor shardExecutor = mock(DocumentShardExecutor.class);
+    private final DocumentBroadcaster broadcaster = mock(DocumentBroadcaster.class);
+    private final DocumentContentLoader loader = mock(DocumentContentLoader.class);
+    private final OperationalTransformService otService = new OperationalTransformService(
+            mock(DocumentSubscriptionIndex.class), shardExecutor, loader, 60000);
+    private final RealtimeController controller =
+            new RealtimeController(messagingTemplate, otService, shardExecutor, broadcaster);
+
+    @BeforeEach
+    void setUp() {
+        when(loader.load(1L)).thenReturn("abc");
+        // run each lane task inline
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(1)).run();
+            return null;
+        }).when(shardExecutor).execute(any(), any(Runnable.class));
+    }
+
+    @Test
+    void testOperationIsAppliedAndBroadcast() {
+        controller.handleEdit(1L, ot(0, List.of(3, "d")), "s1");
+
+        assertEquals("abcd", otService.getDocument(1L).getContent());
+        verify(broadcaster).broadcast(eq(1L), argThat(m -> "ot".equals(m.getOp()) && m.getRevision() == 1));
+    }
+
+    @Test
+    void testEditWithoutOperationsIsRejected() {
+        CollaborationMessage message = new CollaborationMessage();
+        message.setRevision(0);
+
+        controller.handleEdit(1L, message, "s1");
+
+        assertEquals("abc", otService.getDocument(1L).getContent());
+        verify(broadcaster, never()).broadcast(any(), any());
+        verifyError("s1");
+    }
+
+    @Test
+    void testFullEditWithoutContentIsRejected() {
+        CollaborationMessage message = new CollaborationMessage();
+        message.setOp("full");
+
+        controller.handleEdit(1L, message, "s1");
+
+        // the document is not wiped
+        assertEquals("abc", otService.getDocument(1L).getContent());
+        verify(broadcaster, never()).broadcast(any(), any());
+        verifyError("s1");
+    }
+
+    @Test
+    void testEditIsRejectedWhenDocumentCannotBeLoaded() {
+        when(loader.load(2L)).thenThrow(new IllegalStateException("Document 2 could not be loaded"));
+
+        controller.handleEdit(2L, ot(0, List.of("x")), "s1");
+
+        assertTrue(otService.findOpen(2L).isEmpty());
+        verify(broadcaster, never()).broadcast(any(), any());
+        verifyError("s1");
+    }
+
+    @Test
+    void testResyncReturnsMissedOperations() {
+        controller.handleEdit(1L, ot(0, List.of(3, "d")), "s1");
+        controller.handleEdit(1L, ot(1, List.of(4, "e")), "s1");
+
+        CollaborationMessage reply = controller.resync(1L, 0);
+
+        assertEquals("batch", reply.getOp());
+        assertEquals(2, reply.getRevision());
+        assertEquals(2, reply.getMessages().size());
+        assertEquals(List.of(4, "e"), reply.getMessages().get(1).getOps());
+
+        CollaborationMessage current = controller.resync(1L, 2);
+        assertEquals("batch", current.getOp());
+        assertTrue(current.getMessages().isEmpty());
+    }
+
+    private CollaborationMessage ot(int revision, List<Object> ops) {
+        CollaborationMessage message = new CollaborationMessage();
+        message.setOp("ot");
+        message.setRevision(revision);
+        message.setOps(ops);
+        message.setClientId("c1");
+        return message;
+    }
+
+    private void verifyError(String sessionId) {
+        verify(messagingTemplate).convertAndSendToUser(eq(sessionId), eq("/queue/errors"),
+                argThat((Object m) -> "error".equals(((CollaborationMessage) m).getOp())), anyMap());
+    }
+}
@@ -0,0 +1,44 @@
+package com.collab.collaboration_service.ot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OperationLogTest {
+
+    @Test
+    void testKeepsOnlyTheLastCapacityOperations() {
+        OperationLog log = new OperationLog(3);
+        for (int i = 0; i < 5; i++) {
+            log.append(new TextOperation().retain(i).insert("x"), "c" + i);
+        }
+
+        assertThat(log.getRevision()).isEqualTo(5);
+        assertThat(log.getOldestRevision()).isEqualTo(2);
+        assertThat(log.covers(1)).isFalse();
+        List<LoggedOperation> missed = log.since(2);
+        assertThat(missed).extracting(LoggedOperation::revision).containsExactly(3, 4, 5);
+        assertThat(missed).extracting(LoggedOperation::clientId).containsExactly("c2", "c3", "c4");
+        assertThat(log.since(5)).isEmpty();
+        assertThatThrownBy(() -> log.since(1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> log.since(6)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testDocumentRejectsOperationsOlderThanItsLog() {
+        CollaborativeDocument doc = new CollaborativeDocument(1L, "", 2);
+        doc.receive(0, new TextOperation().insert("a"), "c1");
+        doc.receive(1, new TextOperation().retain(1).insert("b"), "c1");
+        doc.receive(2, new TextOperation().retain(2).insert("c"), "c1");
+
+        // still within the log: transformed against the two operations it missed
+        assertThat(doc.receive(1, new TextOperation().retain(1).insert("!")).revision()).isEqualTo(4);
+        assertThat(doc.getContent()).isEqualTo("a!bc");
+        assertThat(doc.operationsSince(0)).isEmpty();
+        assertThatThrownBy(() -> doc.receive(0, new TextOperation().retain(4)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
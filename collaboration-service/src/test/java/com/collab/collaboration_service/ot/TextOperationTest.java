@@ -0,0 +1,81 @@
+package com.collab.collaboration_service.ot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TextOperationTest {
+
+    @Test
+    void testApply() {
+        TextOperation op = new TextOperation().retain(6).insert("big ").retain(5).delete(1);
+        assertThat(op.apply("hello world!")).isEqualTo("hello big world");
+        assertThat(op.getBaseLength()).isEqualTo(12);
+        assertThat(op.getTargetLength()).isEqualTo(15);
+    }
+
+    @Test
+    void testApply_WrongLength() {
+        TextOperation op = new TextOperation().retain(3);
+        assertThatThrownBy(() -> op.apply("hello"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testJsonRoundTrip() {
+        TextOperation op = TextOperation.fromJson(List.of(3, "abc", -2, 1));
+        assertThat(op.toJson()).containsExactly(3, "abc", -2, 1);
+        assertThat(op.apply("012345")).isEqualTo("012abc5");
+    }
+
+    @Test
+    void testCompose() {
+        String doc = "collaborative";
+        TextOperation a = new TextOperation().insert("real-time ").retain(13);
+        TextOperation b = new TextOperation().retain(10).delete(6).insert("edit").retain(7);
+        assertThat(a.compose(b).apply(doc)).isEqualTo(b.apply(a.apply(doc)));
+    }
+
+    @Test
+    void testTransform_Converges() {
+        String doc = "the quick fox";
+        TextOperation a = new TextOperation().retain(4).insert("very ").retain(9);
+        TextOperation b = new TextOperation().retain(4).delete(6).insert("slow ").retain(3);
+
+        TextOperation[] primes = TextOperation.transform(a, b);
+        assertThat(primes[1].apply(a.apply(doc))).isEqualTo(primes[0].apply(b.apply(doc)));
+    }
+
+    @Test
+    void testTransform_SamePositionInsertsKeepFirstOperandFirst() {
+        TextOperation a = new TextOperation().insert("A").retain(2);
+        TextOperation b = new TextOperation().insert("B").retain(2);
+
+        TextOperation[] primes = TextOperation.transform(a, b);
+        assertThat(primes[0].apply(b.apply("xy"))).isEqualTo("ABxy");
+        assertThat(primes[1].apply(a.apply("xy"))).isEqualTo("ABxy");
+    }
+
+    @Test
+    void testDocumentReceivesConcurrentOperations() {
+        CollaborativeDocument doc = new CollaborativeDocument(1L, "hello");
+
+        // both clients start from revision 0
+        AppliedOperation first = doc.receive(0, new TextOperation().retain(5).insert(" world"));
+        AppliedOperation second = doc.receive(0, new TextOperation().delete(1).insert("H").retain(4));
+
+        assertThat(first.revision()).isEqualTo(1);
+        assertThat(second.revision()).isEqualTo(2);
+        assertThat(doc.getContent()).isEqualTo("Hello world");
+    }
+
+    @Test
+    void testDocumentRejectsUnknownRevision() {
+        CollaborativeDocument doc = new CollaborativeDocument(1L, "hello");
+        assertThatThrownBy(() -> doc.receive(3, new TextOperation().retain(5)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,98 @@
+package com.collab.collaboration_service.service;
+
+import com.collab.collaboration_service.dto.CollaborationMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class DocumentBroadcasterTest {
+
+    private final FramePublisher framePublisher = mock(FramePublisher.class);
+    private final DocumentSubscriptionIndex subscriptionIndex = mock(DocumentSubscriptionIndex.class);
+    private DocumentBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        when(subscriptionIndex.hasSubscribers(anyLong())).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (broadcaster != null) broadcaster.shutdown();
+    }
+
+    @Test
+    void testEditsWithinWindowAreSentAsOneBatch() {
+        // long window so only the explicit flush sends anything
+        broadcaster = new DocumentBroadcaster(framePublisher, subscriptionIndex, 60_000, false);
+        broadcaster.broadcast(1L, edit(1));
+        broadcaster.broadcast(1L, edit(2));
+        broadcaster.broadcast(1L, edit(3));
+        verifyNoInteractions(framePublisher);
+
+        broadcaster.flush(1L);
+
+        ArgumentCaptor<Object> sent = ArgumentCaptor.forClass(Object.class);
+        verify(framePublisher, times(1)).publishJson(eq("/topic/doc/1"), sent.capture());
+        CollaborationMessage frame = (CollaborationMessage) sent.getValue();
+        assertEquals("batch", frame.getOp());
+        assertEquals(3, frame.getRevision());
+        assertEquals(3, frame.getMessages().size());
+        assertEquals(1, frame.getMessages().get(0).getRevision());
+    }
+
+    @Test
+    void testSingleEditIsSentUnwrapped() {
+        broadcaster = new DocumentBroadcaster(framePublisher, subscriptionIndex, 60_000, false);
+        CollaborationMessage only = edit(5);
+        broadcaster.broadcast(2L, only);
+        broadcaster.flush(2L);
+
+        verify(framePublisher).publishJson("/topic/doc/2", only);
+    }
+
+    @Test
+    void testZeroWindowSendsImmediately() {
+        broadcaster = new DocumentBroadcaster(framePublisher, subscriptionIndex, 0, false);
+        broadcaster.broadcast(3L, edit(1));
+        broadcaster.broadcast(3L, edit(2));
+
+        verify(framePublisher, times(2)).publishJson(eq("/topic/doc/3"), any(Object.class));
+    }
+
+    @Test
+    void testBinaryFrameOnlyForBinarySubscribers() {
+        broadcaster = new DocumentBroadcaster(framePublisher, subscriptionIndex, 0, true);
+        broadcaster.broadcast(4L, edit(1));
+        verify(framePublisher).publishJson(eq("/topic/doc/4"), any(Object.class));
+        verify(framePublisher, never()).publish(anyString(), any(byte[].class), any());
+
+        when(subscriptionIndex.hasBinarySubscribers(4L)).thenReturn(true);
+        broadcaster.broadcast(4L, edit(2));
+        verify(framePublisher).publish(eq("/topic/doc/4/bin"), any(byte[].class), any());
+    }
+
+    @Test
+    void testNothingIsSerializedWithoutSubscribers() {
+        when(subscriptionIndex.hasSubscribers(5L)).thenReturn(false);
+        broadcaster = new DocumentBroadcaster(framePublisher, subscriptionIndex, 0, true);
+        broadcaster.broadcast(5L, edit(1));
+
+        verifyNoInteractions(framePublisher);
+    }
+
+    private CollaborationMessage edit(int revision) {
+        CollaborationMessage message = new CollaborationMessage();
+        message.setOp("ot");
+        message.setRevision(revision);
+        return message;
+    }
+}
@@ -0,0 +1,58 @@
+package com.collab.collaboration_service.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentShardExecutorTest {
+
+    private DocumentShardExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) executor.shutdown();
+    }
+
+    @Test
+    void testTasksOfOneDocumentRunInOrder() throws InterruptedException {
+        executor = new DocumentShardExecutor(4, 1000);
+        List<Integer> seen = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(500);
+        for (int i = 0; i < 500; i++) {
+            int n = i;
+            executor.execute(42L, () -> { seen.add(n); done.countDown(); });
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(IntStream.range(0, 500).boxed().toList(), seen);
+    }
+
+    @Test
+    void testSameDocumentAlwaysMapsToSameShard() {
+        executor = new DocumentShardExecutor(8, 10);
+        assertEquals(executor.shardFor(7L), executor.shardFor(7L));
+        assertEquals(executor.shardFor(7L), executor.shardFor(15L));
+        assertEquals(8, executor.getShardStats().size());
+    }
+
+    @Test
+    void testFullShardRejects() throws InterruptedException {
+        executor = new DocumentShardExecutor(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(1L, () -> {
+            try { release.await(); } catch (InterruptedException ignored) { }
+        });
+        // first task may still be in the queue; fill until the lane is saturated
+        assertThrows(RejectedExecutionException.class, () -> {
+            for (int i = 0; i < 3; i++) executor.execute(1L, () -> { });
+        });
+        release.countDown();
+    }
+}
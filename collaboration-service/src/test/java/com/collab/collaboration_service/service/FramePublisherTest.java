@@ -0,0 +1,37 @@
+package com.collab.collaboration_service.service;
+
+import com.collab.collaboration_service.dto.CollaborationMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.util.MimeTypeUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class FramePublisherTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testPayloadIsSentAsPreEncodedJson() throws Exception {
+        SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+        ObjectMapper objectMapper = new ObjectMapper();
+        FramePublisher publisher = new FramePublisher(messagingTemplate, objectMapper);
+        CollaborationMessage message = new CollaborationMessage();
+        message.setOp("ot");
+        message.setRevision(4);
+
+        publisher.publishJson("/topic/doc/1", message);
+
+        ArgumentCaptor<Message<?>> sent = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate).send(eq("/topic/doc/1"), sent.capture());
+        Object payload = sent.getValue().getPayload();
+        assertInstanceOf(byte[].class, payload);
+        assertEquals(4, objectMapper.readValue((byte[]) payload, CollaborationMessage.class).getRevision());
+        assertEquals(MimeTypeUtils.APPLICATION_JSON, sent.getValue().getHeaders().get(MessageHeaders.CONTENT_TYPE));
+    }
+}
@@ -0,0 +1,73 @@
+package com.collab.collaboration_service.service;
+
+import com.collab.collaboration_service.ot.CollaborativeDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class OperationalTransformServiceTest {
+
+    private final DocumentSubscriptionIndex subscriptionIndex = mock(DocumentSubscriptionIndex.class);
+    private final DocumentShardExecutor shardExecutor = new DocumentShardExecutor(1, 100);
+    private final DocumentContentLoader loader = mock(DocumentContentLoader.class);
+    // idle immediately
+    private final OperationalTransformService otService =
+            new OperationalTransformService(subscriptionIndex, shardExecutor, loader, 0);
+
+    @BeforeEach
+    void setUp() {
+        when(loader.load(anyLong())).thenReturn("");
+    }
+
+    @AfterEach
+    void tearDown() {
+        shardExecutor.shutdown();
+    }
+
+    @Test
+    void testUnwatchedDocumentIsEvicted() throws Exception {
+        otService.replaceContent(1L, "hello");
+        assertTrue(otService.findOpen(1L).isPresent());
+
+        otService.evictIdle();
+        drainLane(1L);
+
+        assertTrue(otService.findOpen(1L).isEmpty());
+    }
+
+    @Test
+    void testWatchedDocumentIsKept() throws Exception {
+        when(subscriptionIndex.hasLocalSubscribers(2L)).thenReturn(true);
+        CollaborativeDocument doc = otService.getDocument(2L);
+
+        otService.evictIdle();
+        drainLane(2L);
+
+        assertSame(doc, otService.findOpen(2L).orElseThrow());
+    }
+
+    @Test
+    void testFailedLoadIsNotCached() {
+        when(loader.load(3L)).thenThrow(new IllegalStateException("Document 3 could not be loaded"));
+
+        assertThrows(IllegalStateException.class, () -> otService.getDocument(3L));
+        assertTrue(otService.findOpen(3L).isEmpty());
+
+        // the next use loads again and gets the real content
+        doReturn("persisted").when(loader).load(3L);
+        assertEquals("persisted", otService.getDocument(3L).getContent());
+    }
+
+    private void drainLane(Long docId) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        shardExecutor.execute(docId, done::countDown);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+}
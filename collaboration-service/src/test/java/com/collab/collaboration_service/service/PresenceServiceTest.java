@@ -0,0 +1,69 @@
+package com.collab.collaboration_service.service;
+
+import com.collab.collaboration_service.dto.PresenceMessage;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PresenceServiceTest {
+
+    private final FramePublisher framePublisher = mock(FramePublisher.class);
+    private final PresenceService presenceService = new PresenceService(framePublisher);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testOnlyLatestCursorPerSessionIsPublished() {
+        presenceService.update(1L, "s1", cursor(10L, 3));
+        presenceService.update(1L, "s1", cursor(10L, 4));
+        presenceService.update(1L, "s1", cursor(10L, 5));
+        presenceService.update(1L, "s2", cursor(11L, 0));
+
+        presenceService.publish();
+
+        ArgumentCaptor<Object> frame = ArgumentCaptor.forClass(Object.class);
+        verify(framePublisher, times(1)).publishJson(eq("/topic/doc/1/presence"), frame.capture());
+        List<PresenceMessage> states = (List<PresenceMessage>) frame.getValue();
+        assertEquals(2, states.size());
+        assertTrue(states.stream().anyMatch(s -> s.getUserId() == 10L && s.getCursor() == 5));
+
+        // nothing changed since: nothing to send
+        presenceService.publish();
+        verifyNoMoreInteractions(framePublisher);
+        assertEquals(2, presenceService.snapshot(1L).size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDisconnectPublishesLeftOnceAndForgetsSession() {
+        presenceService.update(2L, "s1", cursor(10L, 1));
+        presenceService.publish();
+
+        presenceService.onDisconnect(new SessionDisconnectEvent(this, mock(Message.class), "s1", CloseStatus.NORMAL));
+        presenceService.publish();
+
+        ArgumentCaptor<Object> frame = ArgumentCaptor.forClass(Object.class);
+        verify(framePublisher, times(2)).publishJson(eq("/topic/doc/2/presence"), frame.capture());
+        List<PresenceMessage> last = (List<PresenceMessage>) frame.getValue();
+        assertEquals("left", last.get(0).getStatus());
+        assertTrue(presenceService.snapshot(2L).isEmpty());
+
+        presenceService.publish();
+        verify(framePublisher, times(2)).publishJson(any(), any());
+    }
+
+    private PresenceMessage cursor(Long userId, int position) {
+        PresenceMessage message = new PresenceMessage();
+        message.setUserId(userId);
+        message.setCursor(position);
+        return message;
+    }
+}
@@ -0,0 +1,130 @@
+package com.collab.document_service.cache;
+
+import com.collab.document_service.dto.DocumentSummary;
+import com.collab.document_service.model.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Read-through cache in front of {@code DocumentRepository} reads by id and
+ * of the first page of each owner's document list, weighted by size. Every path that writes a document
+ * must call {@link #evict}; a load that overlaps an eviction is not cached, so
+ * a slow read can never put back what a concurrent write just replaced.
+ * Callers always get their own copies and may modify them freely.
+ */
+@Component
+public class DocumentCache {
+
+    // rough fixed cost of an entry besides its text (entity, strings, map node)
+    private static final long ENTRY_OVERHEAD = 256;
+
+    private final WeightedLruCache<Long, Document> byId;
+    // first page of each owner's document list, which is what gets polled
+    private final WeightedLruCache<Long, List<DocumentSummary>> byOwner;
+    private final int firstPageSize;
+    // bumped by every eviction; loads that saw it change are not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    public DocumentCache(@Value("${document.cache.max-bytes:33554432}") long maxWeight,
+                         @Value("${document.cache.owner-max-bytes:8388608}") long ownerMaxWeight,
+                         @Value("${document.cache.ttl-ms:60000}") long ttlMillis,
+                         @Value("${document.cache.owner-page-size:200}") int firstPageSize) {
+        this.byId = new WeightedLruCache<>(maxWeight, ttlMillis, DocumentCache::weigh);
+        this.byOwner = new WeightedLruCache<>(ownerMaxWeight, ttlMillis,
+                page -> page.stream().mapToLong(DocumentCache::weigh).sum() + ENTRY_OVERHEAD);
+        this.firstPageSize = firstPageSize;
+    }
+
+    public Optional<Document> get(Long id, Function<Long, Optional<Document>> loader) {
+        Document cached = byId.get(id);
+        if (cached != null) return Optional.of(copyOf(cached));
+        long seen = generation.get();
+        Optional<Document> loaded = loader.apply(id);
+        loaded.ifPresent(doc -> {
+            // rows written before content_hash existed get it computed once here
+            if (doc.getContentHash() == null) doc.setContentHash(Document.hash(doc.getContent()));
+            Document copy = copyOf(doc);
+            synchronized (this) {
+                if (generation.get() == seen) byId.put(id, copy);
+            }
+        });
+        return loaded.map(DocumentCache::copyOf);
+    }
+
+    /**
+     * Up to {@code limit} summaries of the first page of an owner's documents.
+     * The loader is asked for the first {@code owner-page-size} rows, so any
+     * first page up to that size is served from one cached entry.
+     */
+    public List<DocumentSummary> getOwnerFirstPage(Long ownerId, int limit, BiFunction<Long, Integer, List<DocumentSummary>> loader) {
+        List<DocumentSummary> page = byOwner.get(ownerId);
+        if (page == null) {
+            long seen = generation.get();
+            page = List.copyOf(loader.apply(ownerId, firstPageSize));
+            synchronized (this) {
+                if (generation.get() == seen) byOwner.put(ownerId, page);
+            }
+        }
+        return page.subList(0, Math.min(limit, page.size()));
+    }
+
+    public int getOwnerPageSize() {
+        return firstPageSize;
+    }
+
+    /**
+     * Drops the document and the owner lists it appears (or appeared) in.
+     * Call after the write, with the owner before and after it if it changed.
+     */
+    public synchronized void evict(Long id, Long... ownerIds) {
+        generation.incrementAndGet();
+        if (id != null) byId.remove(id);
+        for (Long ownerId : ownerIds) {
+            if (ownerId != null) byOwner.remove(ownerId);
+        }
+    }
+
+    // Deletes don't know the owner without another read; they are rare enough to drop all owner lists
+    public synchronized void evictDeleted(Long id) {
+        generation.incrementAndGet();
+        byId.remove(id);
+        byOwner.clear();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("documents", byId.getStats());
+        stats.put("owners", byOwner.getStats());
+        return stats;
+    }
+
+    private static long weigh(Document doc) {
+        long chars = doc.getContent() != null ? doc.getContent().length() : 0;
+        return 2 * chars + ENTRY_OVERHEAD;
+    }
+
+    private static long weigh(DocumentSummary summary) {
+        return 2L * (summary.title() != null ? summary.title().length() : 0) + 128;
+    }
+
+    private static Document copyOf(Document doc) {
+        Document copy = new Document();
+        copy.setId(doc.getId());
+        copy.setTitle(doc.getTitle());
+        copy.setContent(doc.getContent());
+        copy.setOwnerId(doc.getOwnerId());
+        copy.setContentLength(doc.getContentLength());
+        copy.setContentHash(doc.getContentHash());
+        copy.setCreatedAt(doc.getCreatedAt());
+        copy.setUpdatedAt(doc.getUpdatedAt());
+        return copy;
+    }
+}
@@ -0,0 +1,93 @@
+package com.collab.document_service.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * LRU cache bounded by total weight rather than entry count, with a fixed
+ * time-to-live per entry. Large documents therefore push out many small
+ * ones instead of a handful of large ones blowing the heap. All operations
+ * take a single lock; they are O(1) except eviction, which is O(evicted).
+ */
+public class WeightedLruCache<K, V> {
+
+    private record Entry<V>(V value, long weight, long expiresAt) {
+    }
+
+    private final long maxWeight;
+    private final long ttlMillis;
+    private final ToLongFunction<V> weigher;
+    // access order: iteration starts at the least recently used entry
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    public WeightedLruCache(long maxWeight, long ttlMillis, ToLongFunction<V> weigher) {
+        this.maxWeight = maxWeight;
+        this.ttlMillis = ttlMillis;
+        this.weigher = weigher;
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (entry.expiresAt() <= System.currentTimeMillis()) {
+            remove(key);
+            expirations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value();
+    }
+
+    public synchronized void put(K key, V value) {
+        long entryWeight = weigher.applyAsLong(value);
+        remove(key);
+        // never cache something that would on its own evict everything else
+        if (entryWeight > maxWeight) return;
+        entries.put(key, new Entry<>(value, entryWeight, System.currentTimeMillis() + ttlMillis));
+        weight += entryWeight;
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        while (weight > maxWeight && eldest.hasNext()) {
+            weight -= eldest.next().getValue().weight();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized void remove(K key) {
+        Entry<V> removed = entries.remove(key);
+        if (removed != null) {
+            weight -= removed.weight();
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", entries.size());
+        stats.put("weight", weight);
+        stats.put("maxWeight", maxWeight);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("evictions", evictions);
+        stats.put("expirations", expirations);
+        long lookups = hits + misses;
+        stats.put("hitRatio", lookups == 0 ? 0.0 : (double) hits / lookups);
+        return stats;
+    }
+}
@@ -0,0 +1,130 @@
+package com.collab.document_service.codec;
+
+import com.collab.document_service.model.DocumentMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary form of {@link DocumentMessage} used on /app/edit-document.bin
+ * and /topic/documents/{docId}/bin (raw /ws-documents-native endpoint).
+ *
+ * Layout: version byte, a flags byte telling which fields follow, then the
+ * fields in declaration order. Numbers are unsigned LEB128 varints and
+ * strings a varint byte length followed by UTF-8, so a one-character splice
+ * is a handful of bytes instead of a JSON object.
+ */
+public final class DocumentMessageCodec {
+
+    public static final byte VERSION = 1;
+
+    private static final int HAS_DOCUMENT_ID = 1;
+    private static final int HAS_CONTENT = 1 << 1;
+    private static final int HAS_EDITOR = 1 << 2;
+    private static final int HAS_POSITION = 1 << 3;
+    private static final int HAS_DELETE_COUNT = 1 << 4;
+    private static final int HAS_TEXT = 1 << 5;
+
+    private DocumentMessageCodec() {
+    }
+
+    public static byte[] encode(DocumentMessage message) {
+        int flags = 0;
+        if (message.getDocumentId() != null) flags |= HAS_DOCUMENT_ID;
+        if (message.getContent() != null) flags |= HAS_CONTENT;
+        if (message.getEditedByUserId() != null) flags |= HAS_EDITOR;
+        if (message.getPosition() != null) flags |= HAS_POSITION;
+        if (message.getDeleteCount() != null) flags |= HAS_DELETE_COUNT;
+        if (message.getText() != null) flags |= HAS_TEXT;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(VERSION);
+        out.write(flags);
+        if (message.getDocumentId() != null) writeVarint(out, message.getDocumentId());
+        if (message.getContent() != null) writeString(out, message.getContent());
+        if (message.getEditedByUserId() != null) writeVarint(out, message.getEditedByUserId());
+        if (message.getPosition() != null) writeVarint(out, message.getPosition());
+        if (message.getDeleteCount() != null) writeVarint(out, message.getDeleteCount());
+        if (message.getText() != null) writeString(out, message.getText());
+        return out.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the frame is truncated or uses an unknown version
+     */
+    public static DocumentMessage decode(byte[] frame) {
+        Reader in = new Reader(frame);
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported binary frame version " + version);
+        }
+        int flags = in.readByte();
+        DocumentMessage message = new DocumentMessage();
+        if ((flags & HAS_DOCUMENT_ID) != 0) message.setDocumentId(in.readVarint());
+        if ((flags & HAS_CONTENT) != 0) message.setContent(in.readString());
+        if ((flags & HAS_EDITOR) != 0) message.setEditedByUserId(in.readVarint());
+        if ((flags & HAS_POSITION) != 0) message.setPosition(in.readInt());
+        if ((flags & HAS_DELETE_COUNT) != 0) message.setDeleteCount(in.readInt());
+        if ((flags & HAS_TEXT) != 0) message.setText(in.readString());
+        if (in.pos != frame.length) {
+            throw new IllegalArgumentException("Trailing bytes in binary frame");
+        }
+        return message;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        if (value < 0) throw new IllegalArgumentException("Negative varint: " + value);
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static final class Reader {
+        private final byte[] buf;
+        private int pos;
+
+        Reader(byte[] buf) {
+            this.buf = buf;
+        }
+
+        int readByte() {
+            if (pos >= buf.length) throw new IllegalArgumentException("Truncated binary frame");
+            return buf[pos++] & 0xFF;
+        }
+
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    if (value < 0) break;
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in binary frame");
+        }
+
+        int readInt() {
+            long value = readVarint();
+            if (value > Integer.MAX_VALUE) throw new IllegalArgumentException("Value out of range in binary frame: " + value);
+            return (int) value;
+        }
+
+        String readString() {
+            long length = readVarint();
+            if (length > buf.length - pos) throw new IllegalArgumentException("Truncated binary frame");
+            String value = new String(buf, pos, (int) length, StandardCharsets.UTF_8);
+            pos += (int) length;
+            return value;
+        }
+    }
+}
@@ -1,18 +1,56 @@
 package com.collab.document_service.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    // "simple" = in-memory broker (single instance), "relay" = external STOMP broker shared by all instances
+    @Value("${websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${websocket.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${websocket.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${websocket.broker.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${websocket.broker.relay.passcode:guest}")
+    private String relayPasscode;
+
+    // per-session limits; a client that falls further behind than this is disconnected and reconnects
+    @Value("${document.ws.send-buffer-limit-bytes:524288}")
+    private int sendBufferLimitBytes;
+
+    @Value("${document.ws.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${document.ws.message-size-limit-bytes:524288}")
+    private int messageSizeLimitBytes;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic"); // broker prefix for subscribers
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            config.enableStompBrokerRelay("/topic")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode);
+        } else {
+            config.enableSimpleBroker("/topic"); // broker prefix for subscribers
+        }
         config.setApplicationDestinationPrefixes("/app"); // prefix for sending messages
     }
 
@@ -21,5 +59,17 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/ws-documents")
                 .setAllowedOriginPatterns("*")
                 .withSockJS(); // fallback option for browsers without WebSocket
+        // plain WebSocket for binary edit frames (SockJS is text only); permessage-deflate is negotiated by the container
+        registry.addEndpoint("/ws-documents-native")
+                .setAllowedOriginPatterns("*");
+        // hand a session's frames to the controller in the order they arrived; DocumentShardExecutor keeps it per document
+        registry.setPreserveReceiveOrder(true);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendBufferSizeLimit(sendBufferLimitBytes)
+                .setSendTimeLimit(sendTimeLimitMs)
+                .setMessageSizeLimit(messageSizeLimitBytes);
     }
 }
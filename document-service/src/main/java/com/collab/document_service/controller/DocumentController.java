@@ -1,60 +1,231 @@
 package com.collab.document_service.controller;
 
+import com.collab.document_service.cache.DocumentCache;
+import com.collab.document_service.dto.DocumentSummary;
 import com.collab.document_service.model.Document;
+import com.collab.document_service.model.DocumentMessage;
+import com.collab.document_service.repository.DocumentContentStore;
 import com.collab.document_service.repository.DocumentRepository;
+import com.collab.document_service.service.DocumentEditPublisher;
 import com.collab.document_service.service.DocumentService;
+import com.collab.document_service.service.DocumentShardExecutor;
+import com.collab.document_service.session.DocumentSessionManager;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/documents")
 @Tag(name = "Document Editing", description = "APIs for creating, editing, and managing documents")
 public class DocumentController {
 
+    private static final int MAX_PAGE = 200;
+    // set by the api-gateway from the caller's session token; preferred over any userId parameter
+    static final String USER_ID_HEADER = "X-User-Id";
+
     private final DocumentRepository documentRepository;
     private final DocumentService documentService;
+    private final DocumentSessionManager sessionManager;
+    private final DocumentCache documentCache;
+    private final DocumentContentStore contentStore;
+    private final DocumentShardExecutor shardExecutor;
+    private final DocumentEditPublisher editPublisher;
 
-    public DocumentController(DocumentRepository documentRepository, DocumentService documentService) {
+    public DocumentController(DocumentRepository documentRepository, DocumentService documentService,
+                              DocumentSessionManager sessionManager, DocumentCache documentCache,
+                              DocumentContentStore contentStore, DocumentShardExecutor shardExecutor,
+                              DocumentEditPublisher editPublisher) {
         this.documentRepository = documentRepository;
         this.documentService = documentService;
+        this.sessionManager = sessionManager;
+        this.documentCache = documentCache;
+        this.contentStore = contentStore;
+        this.shardExecutor = shardExecutor;
+        this.editPublisher = editPublisher;
     }
 
     @Operation(summary = "Create a new document")
     @ApiResponse(responseCode = "201", description = "Document created successfully")
     @PostMapping
-    public ResponseEntity<Document> createDocument(@RequestBody Document document) {
+    public ResponseEntity<Document> createDocument(
+            @RequestBody Document document,
+            @Parameter(hidden = true) @RequestHeader(value = USER_ID_HEADER, required = false) Long callerId) {
+        if (callerId != null) document.setOwnerId(callerId);
         Document saved = documentRepository.save(document);
+        documentCache.evict(saved.getId(), saved.getOwnerId());
         return ResponseEntity.status(HttpStatus.CREATED).body(saved);
     }
 
-    @Operation(summary = "Get all documents")
+    @Operation(summary = "Get all documents", description = "One page of document summaries (no content), most recently "
+            + "updated first; the cursor for the next page is in the X-Next-Cursor header")
     @GetMapping
-    public ResponseEntity<List<Document>> getAllDocuments() {
-        return ResponseEntity.ok(documentRepository.findAll());
+    public ResponseEntity<List<DocumentSummary>> getAllDocuments(
+            @Parameter(description = "X-Next-Cursor value of the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (max " + MAX_PAGE + ")") @RequestParam(defaultValue = "50") int limit) {
+        Pageable page = PageRequest.of(0, Math.max(1, Math.min(limit, MAX_PAGE)));
+        if (cursor == null || cursor.isBlank()) {
+            return page(documentRepository.findSummaries(page), page);
+        }
+        Cursor after = Cursor.parse(cursor);
+        if (after == null) return ResponseEntity.badRequest().build();
+        return page(documentRepository.findSummariesBefore(after.updatedAt(), after.id(), page), page);
+    }
+
+    @Operation(summary = "Count documents", description = "Total number of documents, without paging through them")
+    @GetMapping("/count")
+    public ResponseEntity<Map<String, Object>> countDocuments() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("count", documentRepository.count());
+        return ResponseEntity.ok(response);
     }
 
-    @Operation(summary = "Get document by ID")
+    @Operation(summary = "Get document by ID", description = "Sends an ETag; a matching If-None-Match returns 304. "
+            + "A character range (Range: chars=start-end, or offset/length) returns 206 with only that part of the content")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Whole document"),
+            @ApiResponse(responseCode = "206", description = "Document with a slice of its content, see Content-Range"),
+            @ApiResponse(responseCode = "304", description = "Unchanged since the ETag in If-None-Match"),
+            @ApiResponse(responseCode = "416", description = "Range starts beyond the end of the content, or the content is empty")
+    })
     @GetMapping("/{id}")
     public ResponseEntity<Document> getDocument(
+            @Parameter(description = "Document ID", required = true) @PathVariable Long id,
+            @Parameter(description = "First character to return") @RequestParam(required = false) Integer offset,
+            @Parameter(description = "Number of characters to return") @RequestParam(required = false) Integer length,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            WebRequest request) {
+        Optional<Document> found = documentCache.get(Objects.requireNonNull(id), documentRepository::findById);
+        if (found.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Document doc = found.get();
+        // content being edited live is newer than the last flushed copy
+        Optional<String> live = sessionManager.getLiveContent(id);
+        if (live.isPresent() && !live.get().equals(doc.getContent())) {
+            doc.setContent(live.get());
+            doc.setContentLength(live.get().length());
+            doc.setContentHash(Document.hash(live.get()));
+        }
+
+        String etag = etagOf(doc);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+
+        CharRange chars = CharRange.of(offset, length, range);
+        if (chars == null) {
+            return ResponseEntity.ok().eTag(etag).body(doc);
+        }
+        String content = doc.getContent() != null ? doc.getContent() : "";
+        // nothing in an empty document can be addressed either
+        if (chars.start() >= content.length()) {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, "chars */" + content.length()).build();
+        }
+        int end = (int) Math.min(content.length(), chars.endExclusive());
+        doc.setContent(content.substring(Math.min(chars.start(), end), end));
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT).eTag(etag)
+                .header(HttpHeaders.CONTENT_RANGE, "chars " + chars.start() + "-" + Math.max(chars.start(), end - 1)
+                        + "/" + content.length())
+                .body(doc);
+    }
+
+    @Operation(summary = "Get document content", description = "The raw content as text/plain, streamed from the "
+            + "database without loading it into memory; meant for documents too large for GET /documents/{id}")
+    @ApiResponse(responseCode = "200", description = "Content streamed")
+    @GetMapping(value = "/{id}/content", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<StreamingResponseBody> getDocumentContent(
             @Parameter(description = "Document ID", required = true) @PathVariable Long id) {
-        Optional<Document> doc = documentRepository.findById(Objects.requireNonNull(id));
-        return doc.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+        Optional<String> live = sessionManager.getLiveContent(id);
+        if (live.isEmpty() && !documentRepository.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        StreamingResponseBody body = out -> {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            if (live.isPresent()) {
+                writer.write(live.get());
+                writer.flush();
+            } else {
+                contentStore.streamTo(id, writer);
+            }
+        };
+        return ResponseEntity.ok().contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8)).body(body);
+    }
+
+    @Operation(summary = "Replace document content", description = "Streams a text/plain body straight into the database. "
+            + "A version is only recorded when userId is given, which reads the content back once for version-service")
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Content replaced"),
+            @ApiResponse(responseCode = "404", description = "Document not found"),
+            @ApiResponse(responseCode = "409", description = "Document is being edited live; use PUT /documents/{id}")
+    })
+    @PutMapping(value = "/{id}/content", consumes = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<?> putDocumentContent(
+            @Parameter(description = "Document ID", required = true) @PathVariable Long id,
+            @RequestParam(required = false) Long userId,
+            @Parameter(hidden = true) @RequestHeader(value = USER_ID_HEADER, required = false) Long callerId,
+            HttpServletRequest request) throws IOException {
+        Long editor = caller(callerId, userId);
+        // a live session would overwrite the upload on its next flush
+        if (sessionManager.getLiveContent(id).isPresent()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("message", "Document " + id + " is being edited live"));
+        }
+        Optional<Long> ownerId = documentRepository.findOwnerIdById(id);
+        if (!contentStore.write(id, request.getReader())) {
+            return ResponseEntity.notFound().build();
+        }
+        documentCache.evict(id, ownerId.orElse(null));
+        if (editor != null) {
+            documentRepository.findById(id).ifPresent(saved -> documentService.createVersion(saved, editor));
+        }
+        return ResponseEntity.noContent().build();
     }
 
-    @Operation(summary = "Get documents by owner ID")
+    @Operation(summary = "Get documents by owner ID", description = "One page of the owner's document summaries (no content), "
+            + "most recently updated first; the cursor for the next page is in the X-Next-Cursor header")
     @GetMapping("/owner/{ownerId}")
-    public ResponseEntity<List<Document>> getDocumentsByOwner(@PathVariable Long ownerId) {
-        return ResponseEntity.ok(documentRepository.findByOwnerId(Objects.requireNonNull(ownerId)));
+    public ResponseEntity<List<DocumentSummary>> getDocumentsByOwner(
+            @PathVariable Long ownerId,
+            @Parameter(description = "X-Next-Cursor value of the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (max " + MAX_PAGE + ")") @RequestParam(defaultValue = "50") int limit) {
+        Objects.requireNonNull(ownerId);
+        Pageable page = PageRequest.of(0, Math.max(1, Math.min(limit, MAX_PAGE)));
+        if (cursor == null || cursor.isBlank()) {
+            // the first page is what the editor polls; it is served from the cache
+            List<DocumentSummary> first = page.getPageSize() <= documentCache.getOwnerPageSize()
+                    ? documentCache.getOwnerFirstPage(ownerId, page.getPageSize(),
+                            (id, size) -> documentRepository.findSummariesByOwner(id, PageRequest.of(0, size)))
+                    : documentRepository.findSummariesByOwner(ownerId, page);
+            return page(first, page);
+        }
+        Cursor after = Cursor.parse(cursor);
+        if (after == null) return ResponseEntity.badRequest().build();
+        return page(documentRepository.findSummariesByOwnerBefore(ownerId, after.updatedAt(), after.id(), page), page);
     }
 
     @Operation(summary = "Update a document (for backend API)")
@@ -62,22 +233,80 @@ public class DocumentController {
     public ResponseEntity<Document> updateDocument(
             @PathVariable Long id,
             @RequestBody Document updatedDocument,
-            @RequestParam(required = false) Long userId) {
+            @RequestParam(required = false) Long userId,
+            @Parameter(hidden = true) @RequestHeader(value = USER_ID_HEADER, required = false) Long callerId) {
+        Long editor = caller(callerId, userId);
+        // only the owner may hand a document to someone else
+        Long newOwnerId = updatedDocument.getOwnerId();
+        if (callerId != null && newOwnerId != null) {
+            Optional<Long> ownerId = documentRepository.findOwnerIdById(id);
+            if (ownerId.isPresent() && !newOwnerId.equals(ownerId.get()) && !callerId.equals(ownerId.get())) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+        }
 
-        return documentRepository.findById(id).map(doc -> {
-            if (updatedDocument.getTitle() != null) doc.setTitle(updatedDocument.getTitle());
-            if (updatedDocument.getContent() != null) doc.setContent(updatedDocument.getContent());
-            if (updatedDocument.getOwnerId() != null) doc.setOwnerId(updatedDocument.getOwnerId());
+        // the whole read-modify-write runs under the live session's flush lock, if any
+        Optional<Document> saved = sessionManager.saveThrough(id, updatedDocument.getContent(), () ->
+                documentRepository.findById(id).map(doc -> {
+                    Long previousOwnerId = doc.getOwnerId();
+                    if (updatedDocument.getTitle() != null) doc.setTitle(updatedDocument.getTitle());
+                    if (updatedDocument.getContent() != null) doc.setContent(updatedDocument.getContent());
+                    if (updatedDocument.getOwnerId() != null) doc.setOwnerId(updatedDocument.getOwnerId());
 
-            Document saved = documentRepository.save(doc);
+                    Document result = documentRepository.save(doc);
+                    documentCache.evict(id, previousOwnerId, result.getOwnerId());
+                    return result;
+                }));
+        if (saved.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
 
-            // create version if userId is provided
-            if (userId != null) {
-                documentService.createVersion(saved, userId);
-            }
+        // create version if userId is provided
+        if (editor != null) {
+            documentService.createVersion(saved.get(), editor);
+        }
+
+        return ResponseEntity.ok(saved.get());
+    }
+
+    @Operation(summary = "Apply a reverted version", description = "Called by version-service after a revert: replaces the "
+            + "content, updates any live editing session and pushes the content to the document's subscribers. "
+            + "Creates no version; the revert is already recorded in version-service")
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Content replaced"),
+            @ApiResponse(responseCode = "400", description = "No content given"),
+            @ApiResponse(responseCode = "404", description = "Document not found")
+    })
+    @PutMapping("/{id}/revert")
+    public ResponseEntity<Void> revertDocument(
+            @Parameter(description = "Document ID", required = true) @PathVariable Long id,
+            @RequestBody Document reverted,
+            @Parameter(description = "User who reverted") @RequestParam(required = false) Long userId,
+            @Parameter(hidden = true) @RequestHeader(value = USER_ID_HEADER, required = false) Long callerId) {
+        Long editor = caller(callerId, userId);
+        if (reverted.getContent() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        // under the live session's flush lock, so a running flush cannot write the old text back
+        Optional<Document> found = sessionManager.saveThrough(id, reverted.getContent(), () ->
+                documentRepository.findById(id).map(doc -> {
+                    doc.setContent(reverted.getContent());
+                    Document saved = documentRepository.save(doc);
+                    documentCache.evict(id, saved.getOwnerId());
+                    return saved;
+                }));
+        if (found.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
 
-            return ResponseEntity.ok(saved);
-        }).orElse(ResponseEntity.notFound().build());
+        DocumentMessage message = new DocumentMessage(id, found.get().getContent(), editor);
+        try {
+            // on the document's lane, so editors get it in order with the edits around it
+            shardExecutor.execute(id, () -> editPublisher.publish(message));
+        } catch (RejectedExecutionException e) {
+            System.err.println("Reverted document " + id + " not pushed to editors: lane queue is full");
+        }
+        return ResponseEntity.noContent().build();
     }
 
     @Operation(summary = "Delete a document")
@@ -85,8 +314,68 @@ public class DocumentController {
     public ResponseEntity<Void> deleteDocument(@PathVariable Long id) {
         if (documentRepository.existsById(id)) {
             documentRepository.deleteById(id);
+            documentCache.evictDeleted(id);
+            sessionManager.discard(id);
             return ResponseEntity.ok().build();
         }
         return ResponseEntity.notFound().build();
     }
+
+    // Covers the metadata in the body as well, so a rename or owner change is not answered with 304
+    private static String etagOf(Document doc) {
+        String representation = doc.getContentHash() + "|" + doc.getTitle() + "|" + doc.getOwnerId()
+                + "|" + doc.getCreatedAt() + "|" + doc.getUpdatedAt();
+        return "\"" + Document.hash(representation) + "\"";
+    }
+
+    private static Long caller(Long callerId, Long userId) {
+        return callerId != null ? callerId : userId;
+    }
+
+    // A full page means there may be more; the cursor is the last row's position
+    private ResponseEntity<List<DocumentSummary>> page(List<DocumentSummary> summaries, Pageable page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (summaries.size() == page.getPageSize()) {
+            DocumentSummary last = summaries.get(summaries.size() - 1);
+            response.header("X-Next-Cursor", last.updatedAt() + "_" + last.id());
+        }
+        return response.body(summaries);
+    }
+
+    private record Cursor(LocalDateTime updatedAt, Long id) {
+        static Cursor parse(String cursor) {
+            int separator = cursor.lastIndexOf('_');
+            try {
+                return new Cursor(LocalDateTime.parse(cursor.substring(0, separator)),
+                        Long.parseLong(cursor.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+    }
+
+    // Characters [start, endExclusive) of the content, from offset/length or a "chars=start-end" Range header
+    private record CharRange(int start, long endExclusive) {
+        static CharRange of(Integer offset, Integer length, String range) {
+            if (offset != null || length != null) {
+                int start = Math.max(0, offset != null ? offset : 0);
+                long count = length != null ? Math.max(0, length) : Integer.MAX_VALUE;
+                return new CharRange(start, start + count);
+            }
+            if (range == null || !range.startsWith("chars=")) {
+                return null;
+            }
+            String spec = range.substring("chars=".length());
+            int dash = spec.indexOf('-');
+            try {
+                int start = Integer.parseInt(spec.substring(0, dash).trim());
+                String last = spec.substring(dash + 1).trim();
+                long end = last.isEmpty() ? Integer.MAX_VALUE : Long.parseLong(last) + 1;
+                return start >= 0 && end > start ? new CharRange(start, end) : null;
+            } catch (RuntimeException e) {
+                // unparseable ranges are ignored and the whole document is sent, as with bytes ranges
+                return null;
+            }
+        }
+    }
 }
@@ -1,40 +1,68 @@
 package com.collab.document_service.controller;
 
+import com.collab.document_service.codec.DocumentMessageCodec;
 import com.collab.document_service.model.DocumentMessage;
-import com.collab.document_service.model.Document;
-import com.collab.document_service.repository.DocumentRepository;
-import com.collab.document_service.service.DocumentService;
+import com.collab.document_service.service.DocumentEditPublisher;
+import com.collab.document_service.service.DocumentShardExecutor;
+import com.collab.document_service.session.DocumentSessionManager;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.handler.annotation.SendTo;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.stereotype.Controller;
 
-import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
 
 @Controller
 public class DocumentWebSocketController {
 
-    private final DocumentRepository documentRepository;
-    private final DocumentService documentService;
+    private final DocumentSessionManager sessionManager;
+    private final DocumentShardExecutor shardExecutor;
+    private final DocumentEditPublisher editPublisher;
 
-    public DocumentWebSocketController(DocumentRepository documentRepository, DocumentService documentService) {
-        this.documentRepository = documentRepository;
-        this.documentService = documentService;
+    public DocumentWebSocketController(DocumentSessionManager sessionManager, DocumentShardExecutor shardExecutor,
+                                       DocumentEditPublisher editPublisher) {
+        this.sessionManager = sessionManager;
+        this.shardExecutor = shardExecutor;
+        this.editPublisher = editPublisher;
     }
 
     @MessageMapping("/edit-document")
-    @SendTo("/topic/document-updates")
-    public DocumentMessage editDocument(DocumentMessage message) {
-        Long docId = Objects.requireNonNull(message.getDocumentId());
-        Document updated = documentRepository.findById(docId).map(doc -> {
-            doc.setContent(message.getContent());
-            Document saved = documentRepository.save(doc);
-            // Create a new version in Version Service
-            documentService.createVersion(saved, message.getEditedByUserId());
-            return saved;
-        }).orElseThrow(() -> new RuntimeException("Document not found: " + docId));
-
-        // broadcast updated content to all subscribers
-        return new DocumentMessage(updated.getId(), updated.getContent(), message.getEditedByUserId());
+    public void editDocument(DocumentMessage message,
+                             @Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId) {
+        submitEdit(message, sessionId);
+    }
+
+    // Same edit in the DocumentMessageCodec encoding
+    @MessageMapping("/edit-document.bin")
+    public void editDocumentBinary(@Payload byte[] frame,
+                                   @Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId) {
+        DocumentMessage message;
+        try {
+            message = DocumentMessageCodec.decode(frame);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Rejected binary edit from session " + sessionId + ": " + e.getMessage());
+            return;
+        }
+        submitEdit(message, sessionId);
+    }
+
+    private void submitEdit(DocumentMessage message, String sessionId) {
+        try {
+            // edits of one document are applied and broadcast in order on that document's lane
+            shardExecutor.execute(message.getDocumentId(), () -> {
+                try {
+                    // applied in memory only; DocumentSessionManager persists and versions it in the background
+                    sessionManager.applyEdit(sessionId, message);
+
+                    // broadcast the edit as received (full content or splice) to the document's own topic
+                    editPublisher.publish(message);
+                } catch (RuntimeException e) {
+                    System.err.println("Failed to apply edit to document " + message.getDocumentId() + ": " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            System.err.println("Dropped edit to document " + message.getDocumentId() + ": lane queue is full");
+        }
     }
 }
- 
\ No newline at end of file
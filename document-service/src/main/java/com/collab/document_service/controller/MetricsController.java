@@ -0,0 +1,49 @@
+package com.collab.document_service.controller;
+
+import com.collab.document_service.cache.DocumentCache;
+import com.collab.document_service.service.DocumentShardExecutor;
+import com.collab.document_service.session.DocumentSubscriptionIndex;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/documents/metrics")
+@CrossOrigin(origins = "*")
+public class MetricsController {
+
+    private final DocumentShardExecutor shardExecutor;
+    private final DocumentSubscriptionIndex subscriptionIndex;
+    private final DocumentCache documentCache;
+
+    public MetricsController(DocumentShardExecutor shardExecutor, DocumentSubscriptionIndex subscriptionIndex,
+                             DocumentCache documentCache) {
+        this.shardExecutor = shardExecutor;
+        this.subscriptionIndex = subscriptionIndex;
+        this.documentCache = documentCache;
+    }
+
+    // Queue depth per document lane
+    @GetMapping("/shards")
+    public ResponseEntity<Map<String, Object>> getShardMetrics() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("shards", shardExecutor.getShardStats());
+        return ResponseEntity.ok(response);
+    }
+
+    // Documents with at least one open /topic/documents/{docId} subscription on this instance
+    @GetMapping("/subscriptions")
+    public ResponseEntity<Map<String, Object>> getSubscriptionMetrics() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("documents", subscriptionIndex.documentCount());
+        return ResponseEntity.ok(response);
+    }
+
+    // Hits, misses, evictions and weight of the document read cache
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> getCacheMetrics() {
+        return ResponseEntity.ok(documentCache.getStats());
+    }
+}
@@ -0,0 +1,15 @@
+package com.collab.document_service.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Document metadata for list views, without the content.
+ */
+public record DocumentSummary(
+        Long id,
+        String title,
+        Long ownerId,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        Integer contentLength) {
+}
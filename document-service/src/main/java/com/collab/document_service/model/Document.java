@@ -1,11 +1,20 @@
 package com.collab.document_service.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.util.HexFormat;
 
 @Entity
-@Table(name = "documents")
+@Table(name = "documents", indexes = {
+        // keyset pagination of the document lists, newest first
+        @Index(name = "idx_documents_updated", columnList = "updated_at, id"),
+        @Index(name = "idx_documents_owner_updated", columnList = "owner_id, updated_at, id")
+})
 public class Document {
     
     @Id
@@ -20,6 +29,15 @@ public class Document {
 
     private Long ownerId;
 
+    // kept alongside the content so list views can show a size without reading the TEXT column
+    @Column(name = "content_length")
+    private Integer contentLength;
+
+    // SHA-256 of the content; part of the ETag of GET /documents/{id}
+    @JsonIgnore
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -30,11 +48,25 @@ public class Document {
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
+        contentLength = content != null ? content.length() : 0;
+        contentHash = hash(content);
     }
 
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        contentLength = content != null ? content.length() : 0;
+        contentHash = hash(content);
+    }
+
+    public static String hash(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest((content != null ? content : "").getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 
     // Getters and Setters
@@ -50,6 +82,12 @@ public class Document {
     public Long getOwnerId() { return ownerId; }
     public void setOwnerId(Long ownerId) { this.ownerId = ownerId; }
 
+    public Integer getContentLength() { return contentLength; }
+    public void setContentLength(Integer contentLength) { this.contentLength = contentLength; }
+
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
@@ -2,8 +2,12 @@ package com.collab.document_service.model;
 
 public class DocumentMessage {
     private Long documentId;
-    private String content;
+    private String content; // full replacement; leave null to send a splice instead
     private Long editedByUserId;
+    // splice: remove deleteCount characters at position, then insert text there
+    private Integer position;
+    private Integer deleteCount;
+    private String text;
 
     public DocumentMessage() {}
     public DocumentMessage(Long documentId, String content, Long editedByUserId) {
@@ -20,4 +24,13 @@ public class DocumentMessage {
 
     public Long getEditedByUserId() { return editedByUserId; }
     public void setEditedByUserId(Long editedByUserId) { this.editedByUserId = editedByUserId; }
+
+    public Integer getPosition() { return position; }
+    public void setPosition(Integer position) { this.position = position; }
+
+    public Integer getDeleteCount() { return deleteCount; }
+    public void setDeleteCount(Integer deleteCount) { this.deleteCount = deleteCount; }
+
+    public String getText() { return text; }
+    public void setText(String text) { this.text = text; }
 }
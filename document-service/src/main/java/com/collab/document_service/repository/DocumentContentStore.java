@@ -0,0 +1,129 @@
+package com.collab.document_service.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+
+/**
+ * Reads and writes {@code documents.content} as a character stream, so large
+ * documents go between the database and the HTTP body in small buffers
+ * instead of being materialized as one String (plus its JSON copy). The
+ * column is a CLOB in H2, so the driver streams it as well.
+ */
+@Repository
+public class DocumentContentStore {
+
+    private static final int BUFFER_CHARS = 8192;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DocumentContentStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Copies the content of a document to {@code out}. Returns false if the
+     * document does not exist.
+     */
+    @Transactional(readOnly = true)
+    public boolean streamTo(Long id, Writer out) {
+        Boolean found = jdbcTemplate.query("select content from documents where id = ?", rs -> {
+            if (!rs.next()) return false;
+            try (Reader content = rs.getCharacterStream(1)) {
+                if (content != null) {
+                    content.transferTo(out);
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return true;
+        }, id);
+        return Boolean.TRUE.equals(found);
+    }
+
+    /**
+     * Replaces the content of a document with everything read from
+     * {@code content}. Length and hash are computed while the driver consumes
+     * the stream. Returns false if the document does not exist.
+     */
+    @Transactional
+    public boolean write(Long id, Reader content) {
+        HashingReader reader = new HashingReader(content);
+        int updated = jdbcTemplate.update("update documents set content = ?, updated_at = ? where id = ?", ps -> {
+            ps.setCharacterStream(1, reader);
+            ps.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+            ps.setLong(3, id);
+        });
+        if (updated == 0) return false;
+        jdbcTemplate.update("update documents set content_length = ?, content_hash = ? where id = ?",
+                reader.length(), reader.hash(), id);
+        return true;
+    }
+
+    // Counts the characters passing through and feeds their UTF-8 bytes to SHA-256, as Document.hash does
+    private static class HashingReader extends FilterReader {
+        private final MessageDigest digest;
+        private final Writer utf8;
+        private long length;
+
+        HashingReader(Reader in) {
+            super(in);
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+            utf8 = new OutputStreamWriter(new DigestOutputStream(OutputStream.nullOutputStream(), digest),
+                    StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = super.read();
+            if (c >= 0) {
+                utf8.write(c);
+                length++;
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] buf, int off, int len) throws IOException {
+            int n = super.read(buf, off, Math.min(len, BUFFER_CHARS));
+            if (n > 0) {
+                utf8.write(buf, off, n);
+                length += n;
+            }
+            return n;
+        }
+
+        int length() {
+            return (int) Math.min(length, Integer.MAX_VALUE);
+        }
+
+        String hash() {
+            try {
+                utf8.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        }
+    }
+}
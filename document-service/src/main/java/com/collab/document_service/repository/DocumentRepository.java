@@ -1,10 +1,45 @@
 package com.collab.document_service.repository;
 
+import com.collab.document_service.dto.DocumentSummary;
 import com.collab.document_service.model.Document;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface DocumentRepository extends JpaRepository<Document, Long> {
     List<Document> findByOwnerId(Long ownerId);
-}
 
+    @Query("select d.ownerId from Document d where d.id = :id")
+    Optional<Long> findOwnerIdById(@Param("id") Long id);
+
+    // Document lists, newest first, keyset-paginated on (updatedAt, id); rows saved before
+    // content_length existed fall back to measuring the content
+    @Query("select new com.collab.document_service.dto.DocumentSummary(d.id, d.title, d.ownerId, d.createdAt, "
+            + "d.updatedAt, coalesce(d.contentLength, length(d.content))) from Document d "
+            + "order by d.updatedAt desc, d.id desc")
+    List<DocumentSummary> findSummaries(Pageable pageable);
+
+    @Query("select new com.collab.document_service.dto.DocumentSummary(d.id, d.title, d.ownerId, d.createdAt, "
+            + "d.updatedAt, coalesce(d.contentLength, length(d.content))) from Document d "
+            + "where d.updatedAt < :updatedAt or (d.updatedAt = :updatedAt and d.id < :id) "
+            + "order by d.updatedAt desc, d.id desc")
+    List<DocumentSummary> findSummariesBefore(@Param("updatedAt") LocalDateTime updatedAt, @Param("id") Long id,
+                                              Pageable pageable);
+
+    @Query("select new com.collab.document_service.dto.DocumentSummary(d.id, d.title, d.ownerId, d.createdAt, "
+            + "d.updatedAt, coalesce(d.contentLength, length(d.content))) from Document d "
+            + "where d.ownerId = :ownerId order by d.updatedAt desc, d.id desc")
+    List<DocumentSummary> findSummariesByOwner(@Param("ownerId") Long ownerId, Pageable pageable);
+
+    @Query("select new com.collab.document_service.dto.DocumentSummary(d.id, d.title, d.ownerId, d.createdAt, "
+            + "d.updatedAt, coalesce(d.contentLength, length(d.content))) from Document d "
+            + "where d.ownerId = :ownerId and (d.updatedAt < :updatedAt or (d.updatedAt = :updatedAt and d.id < :id)) "
+            + "order by d.updatedAt desc, d.id desc")
+    List<DocumentSummary> findSummariesByOwnerBefore(@Param("ownerId") Long ownerId, @Param("updatedAt") LocalDateTime updatedAt,
+                                                     @Param("id") Long id, Pageable pageable);
+}
@@ -0,0 +1,66 @@
+package com.collab.document_service.service;
+
+import com.collab.document_service.codec.DocumentMessageCodec;
+import com.collab.document_service.model.DocumentMessage;
+import com.collab.document_service.session.DocumentSubscriptionIndex;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Sends an edit to everyone who has the document open, on its own topic
+ * (JSON, plus the binary encoding when enabled and someone subscribed to
+ * it). Nothing is encoded when the document has no subscribers.
+ *
+ * Each encoding is serialized once here and handed to the broker as a
+ * ready-made byte[] message, so every subscriber session gets the same array
+ * instead of the payload going through the converter chain per send.
+ */
+@Service
+public class DocumentEditPublisher {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final DocumentSubscriptionIndex subscriptionIndex;
+    private final boolean binaryEnabled;
+
+    public DocumentEditPublisher(SimpMessagingTemplate messagingTemplate, ObjectMapper objectMapper,
+                                 DocumentSubscriptionIndex subscriptionIndex,
+                                 @Value("${document.wire.binary-enabled:true}") boolean binaryEnabled) {
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+        this.subscriptionIndex = subscriptionIndex;
+        this.binaryEnabled = binaryEnabled;
+    }
+
+    public void publish(DocumentMessage message) {
+        if (!subscriptionIndex.hasSubscribers(message.getDocumentId())) return;
+        String topic = DocumentSubscriptionIndex.topicFor(message.getDocumentId());
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize edit of document " + message.getDocumentId(), e);
+        }
+        messagingTemplate.send(topic, frame(json, MimeTypeUtils.APPLICATION_JSON));
+        if (binaryEnabled && subscriptionIndex.hasBinarySubscribers(message.getDocumentId())) {
+            messagingTemplate.send(topic + "/bin",
+                    frame(DocumentMessageCodec.encode(message), MimeTypeUtils.APPLICATION_OCTET_STREAM));
+        }
+    }
+
+    private static Message<byte[]> frame(byte[] body, MimeType contentType) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setContentType(contentType);
+        headers.setLeaveMutable(true); // the template still sets the destination
+        return MessageBuilder.createMessage(body, headers.getMessageHeaders());
+    }
+}
@@ -0,0 +1,72 @@
+package com.collab.document_service.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs work for a document on one of {@code document.shards.count} single-threaded
+ * lanes chosen by docId. Edits of one document are therefore processed in
+ * order without a global lock, and a busy document only delays the documents
+ * hashed to the same lane instead of the whole inbound pool.
+ *
+ * Kept in step with collaboration-service's lanes ({@code collab.shards.*});
+ * there is no module the two services could share it from.
+ */
+@Component
+public class DocumentShardExecutor {
+
+    private final List<ThreadPoolExecutor> shards = new ArrayList<>();
+
+    public DocumentShardExecutor(@Value("${document.shards.count:8}") int shardCount,
+                                 @Value("${document.shards.queue-capacity:10000}") int queueCapacity) {
+        for (int i = 0; i < shardCount; i++) {
+            String name = "doc-shard-" + i;
+            // AbortPolicy: a full lane rejects instead of running on the caller, which would break ordering
+            shards.add(new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(queueCapacity), r -> new Thread(r, name)));
+        }
+    }
+
+    /**
+     * Queues the task on the document's lane.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException if that lane's queue is full
+     */
+    public void execute(Long docId, Runnable task) {
+        shards.get(shardFor(docId)).execute(task);
+    }
+
+    public int shardFor(Long docId) {
+        return Math.floorMod(Objects.hashCode(docId), shards.size());
+    }
+
+    // Queue depth and completed task count per lane
+    public List<Map<String, Object>> getShardStats() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        for (int i = 0; i < shards.size(); i++) {
+            ThreadPoolExecutor shard = shards.get(i);
+            Map<String, Object> stat = new HashMap<>();
+            stat.put("shard", i);
+            stat.put("queueDepth", shard.getQueue().size());
+            stat.put("active", shard.getActiveCount());
+            stat.put("completedTasks", shard.getCompletedTaskCount());
+            stats.add(stat);
+        }
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shards.forEach(ThreadPoolExecutor::shutdown);
+    }
+}
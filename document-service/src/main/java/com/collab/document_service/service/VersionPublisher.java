@@ -0,0 +1,146 @@
+package com.collab.document_service.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects versions to be stored in version-service and sends them in one
+ * request to {@code POST /versions/batch} every {@code version.publisher.batch-interval-ms}.
+ * Only the latest pending version of each document is kept, so a burst of
+ * saves to one document turns into a single version per batch. Callers
+ * never wait on version-service: when {@code version.publisher.max-pending}
+ * documents are already waiting, a version for another document is dropped
+ * (and counted) rather than sent inline.
+ *
+ * Batches are sent from the publisher's own thread rather than the shared
+ * {@code @Scheduled} thread, so a slow version-service cannot hold up the
+ * write-back of live edits in {@code DocumentSessionManager}.
+ */
+@Component
+public class VersionPublisher {
+
+    private final RestTemplate restTemplate;
+    // documentId -> latest version payload not yet sent
+    private final Map<Long, Map<String, Object>> pending = new ConcurrentHashMap<>();
+    // guards the size bound on pending; held only for map updates, never during I/O
+    private final Object admission = new Object();
+    private final AtomicLong dropped = new AtomicLong();
+
+    @Value("${version.service.url:http://localhost:8083}")
+    private String versionServiceUrl;
+
+    @Value("${version.publisher.max-pending:10000}")
+    private int maxPending;
+
+    @Value("${version.publisher.batch-interval-ms:2000}")
+    private long batchIntervalMs;
+
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public VersionPublisher(RestTemplate restTemplate) {
+        this.restTemplate = restTemplate;
+    }
+
+    VersionPublisher(RestTemplate restTemplate, String versionServiceUrl, int maxPending) {
+        this.restTemplate = restTemplate;
+        this.versionServiceUrl = versionServiceUrl;
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Queues a version, replacing one already waiting for the same document.
+     * Returns false if the queue is full and the version was dropped.
+     */
+    public boolean enqueue(Long documentId, Map<String, Object> versionData) {
+        synchronized (admission) {
+            if (pending.size() >= maxPending && !pending.containsKey(documentId)) {
+                // the document's next save queues a fresh version with the then-current content
+                long total = dropped.incrementAndGet();
+                System.err.println("Version queue full, dropped version of document " + documentId
+                        + " (" + total + " dropped so far)");
+                return false;
+            }
+            pending.put(documentId, versionData);
+            return true;
+        }
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "version-publisher"));
+        scheduler.scheduleWithFixedDelay(this::publish, batchIntervalMs, batchIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void publish() {
+        if (pending.isEmpty()) return;
+        Map<Long, Map<String, Object>> batch = new HashMap<>();
+        for (Long documentId : new ArrayList<>(pending.keySet())) {
+            Map<String, Object> versionData = pending.remove(documentId);
+            if (versionData != null) {
+                batch.put(documentId, versionData);
+            }
+        }
+        if (batch.isEmpty()) return;
+
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            HttpEntity<List<Map<String, Object>>> request = new HttpEntity<>(new ArrayList<>(batch.values()), headers);
+
+            restTemplate.postForEntity(
+                    versionServiceUrl + "/versions/batch",
+                    request,
+                    Object.class
+            );
+        } catch (Exception e) {
+            // put back whatever has not been superseded meanwhile, within the bound, and retry on the next tick
+            int lost = 0;
+            synchronized (admission) {
+                for (Map.Entry<Long, Map<String, Object>> entry : batch.entrySet()) {
+                    if (pending.size() < maxPending) {
+                        pending.putIfAbsent(entry.getKey(), entry.getValue());
+                    } else if (!pending.containsKey(entry.getKey())) {
+                        lost++;
+                    }
+                }
+            }
+            dropped.addAndGet(lost);
+            System.err.println("Failed to publish " + batch.size() + " versions (" + lost + " dropped): " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() throws InterruptedException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        publish();
+    }
+}
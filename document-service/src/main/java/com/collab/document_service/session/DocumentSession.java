@@ -0,0 +1,104 @@
+package com.collab.document_service.session;
+
+import com.collab.document_service.model.DocumentMessage;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Live, authoritative content of a document while clients are editing it.
+ * Edits are applied to the in-memory piece table and persisted later by
+ * {@link DocumentSessionManager} in a single write.
+ */
+public class DocumentSession {
+
+    private final Long documentId;
+    private final PieceTable text;
+    private final Set<String> participants = new HashSet<>();
+    // held by DocumentSessionManager around each write-back so one session is never flushed twice at once
+    final ReentrantLock flushLock = new ReentrantLock();
+    private boolean closed;
+    private long editCount;
+    private long flushedEditCount;
+    private Long lastEditorId;
+
+    public DocumentSession(Long documentId, String content) {
+        this.documentId = documentId;
+        this.text = new PieceTable(content);
+    }
+
+    /**
+     * Applies a full replacement (content set) or a splice at
+     * {@code position}: remove {@code deleteCount} characters, then insert {@code text}.
+     * Returns false, without applying anything, once the session is closed.
+     */
+    public synchronized boolean apply(String participantId, DocumentMessage message) {
+        if (closed) return false;
+        if (participantId != null) {
+            participants.add(participantId);
+        }
+        if (message.getContent() != null) {
+            text.reset(message.getContent());
+        } else {
+            int position = message.getPosition() != null ? message.getPosition() : text.length();
+            if (message.getDeleteCount() != null) {
+                text.delete(position, message.getDeleteCount());
+            }
+            text.insert(position, message.getText());
+        }
+        editCount++;
+        if (message.getEditedByUserId() != null) {
+            lastEditorId = message.getEditedByUserId();
+        }
+        return true;
+    }
+
+    /**
+     * Replaces the content with text that has already been persisted elsewhere.
+     */
+    public synchronized void replacePersisted(String content) {
+        text.reset(content);
+        flushedEditCount = ++editCount;
+    }
+
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(text.toString(), editCount, lastEditorId);
+    }
+
+    public synchronized void markFlushed(Snapshot snapshot) {
+        flushedEditCount = Math.max(flushedEditCount, snapshot.editCount());
+        if (flushedEditCount == editCount) {
+            text.compact();
+        }
+    }
+
+    public synchronized boolean isDirty() {
+        return editCount != flushedEditCount;
+    }
+
+    public synchronized String getContent() {
+        return text.toString();
+    }
+
+    // Closes the session when the last participant has left, and returns true if it did
+    public synchronized boolean leave(String participantId) {
+        participants.remove(participantId);
+        if (participants.isEmpty()) {
+            closed = true;
+        }
+        return closed;
+    }
+
+    public synchronized void close() {
+        closed = true;
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    public Long getDocumentId() { return documentId; }
+
+    public record Snapshot(String content, long editCount, Long lastEditorId) {}
+}
@@ -0,0 +1,195 @@
+package com.collab.document_service.session;
+
+import com.collab.document_service.cache.DocumentCache;
+import com.collab.document_service.model.Document;
+import com.collab.document_service.model.DocumentMessage;
+import com.collab.document_service.repository.DocumentRepository;
+import com.collab.document_service.service.DocumentService;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Keeps one {@link DocumentSession} per document that has connected editors and
+ * writes it back to the {@link DocumentRepository} every
+ * {@code document.session.flush-interval-ms} and when the last editor disconnects.
+ */
+@Service
+public class DocumentSessionManager {
+
+    private final DocumentRepository documentRepository;
+    private final DocumentService documentService;
+    private final DocumentCache documentCache;
+    private final Map<Long, DocumentSession> sessions = new ConcurrentHashMap<>();
+    // WebSocket session id -> documents it has edited
+    private final Map<String, Set<Long>> participantDocuments = new ConcurrentHashMap<>();
+
+    public DocumentSessionManager(DocumentRepository documentRepository, DocumentService documentService,
+                                  DocumentCache documentCache) {
+        this.documentRepository = documentRepository;
+        this.documentService = documentService;
+        this.documentCache = documentCache;
+    }
+
+    public DocumentSession applyEdit(String participantId, DocumentMessage message) {
+        Long docId = Objects.requireNonNull(message.getDocumentId());
+        while (true) {
+            DocumentSession session = open(docId);
+            if (session.apply(participantId, message)) {
+                if (participantId != null) {
+                    participantDocuments.computeIfAbsent(participantId, id -> ConcurrentHashMap.newKeySet()).add(docId);
+                }
+                return session;
+            }
+            // closed by the last editor leaving; wait for its final write, then reopen from the database
+            retire(session);
+        }
+    }
+
+    public Optional<String> getLiveContent(Long docId) {
+        DocumentSession session = sessions.get(docId);
+        return session != null ? Optional.of(session.getContent()) : Optional.empty();
+    }
+
+    /**
+     * Runs a write of the document made outside the session (REST update, revert) and moves any open
+     * session to the written content. With a session open this happens under its flush lock, so a flush
+     * that already took its snapshot can neither write that older text over the new content nor mark
+     * the session clean with it. {@code content} is null when the write leaves the content alone.
+     */
+    public Optional<Document> saveThrough(Long docId, String content, Supplier<Optional<Document>> save) {
+        DocumentSession session = sessions.get(docId);
+        if (session == null) {
+            Optional<Document> saved = save.get();
+            // an editor may have opened a session from the old row in the meantime
+            DocumentSession opened = sessions.get(docId);
+            if (opened != null && saved.isPresent()) {
+                replacePersisted(opened, content);
+            }
+            return saved;
+        }
+        session.flushLock.lock();
+        try {
+            Optional<Document> saved = save.get();
+            if (saved.isPresent() && content != null) {
+                session.replacePersisted(content);
+            }
+            return saved;
+        } finally {
+            session.flushLock.unlock();
+        }
+    }
+
+    public void discard(Long docId) {
+        DocumentSession session = sessions.remove(docId);
+        if (session != null) {
+            session.close();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${document.session.flush-interval-ms:5000}")
+    public void flushAll() {
+        for (DocumentSession session : sessions.values()) {
+            session.flushLock.lock();
+            try {
+                flush(session);
+                removeIfRetired(session);
+            } finally {
+                session.flushLock.unlock();
+            }
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Set<Long> docIds = participantDocuments.remove(event.getSessionId());
+        if (docIds == null) return;
+        for (Long docId : docIds) {
+            DocumentSession session = sessions.get(docId);
+            if (session == null) continue;
+            // closed under the flush lock, so nobody reopens the document before the final write is done
+            session.flushLock.lock();
+            try {
+                if (session.leave(event.getSessionId())) {
+                    flush(session);
+                    removeIfRetired(session);
+                }
+            } finally {
+                session.flushLock.unlock();
+            }
+        }
+    }
+
+    private DocumentSession open(Long docId) {
+        DocumentSession session = sessions.get(docId);
+        if (session != null) return session;
+        // read outside the map so a slow load doesn't block other documents; a losing racer's copy is dropped
+        Document doc = documentRepository.findById(docId)
+                .orElseThrow(() -> new RuntimeException("Document not found: " + docId));
+        session = new DocumentSession(docId, doc.getContent());
+        DocumentSession existing = sessions.putIfAbsent(docId, session);
+        return existing != null ? existing : session;
+    }
+
+    private void replacePersisted(DocumentSession session, String content) {
+        if (content == null) return;
+        session.flushLock.lock();
+        try {
+            session.replacePersisted(content);
+        } finally {
+            session.flushLock.unlock();
+        }
+    }
+
+    private void retire(DocumentSession session) {
+        session.flushLock.lock();
+        try {
+            flush(session);
+            if (session.isDirty()) {
+                throw new IllegalStateException("Document " + session.getDocumentId() + " has unsaved edits from a closed session");
+            }
+            sessions.remove(session.getDocumentId(), session);
+        } finally {
+            session.flushLock.unlock();
+        }
+    }
+
+    // A closed session stays registered until everything in it is written, so a failed final flush is retried
+    private void removeIfRetired(DocumentSession session) {
+        if (session.isClosed() && !session.isDirty()) {
+            sessions.remove(session.getDocumentId(), session);
+        }
+    }
+
+    // Callers hold the session's flush lock
+    private void flush(DocumentSession session) {
+        if (!session.isDirty()) return;
+        DocumentSession.Snapshot snapshot = session.snapshot();
+        try {
+            Optional<Document> doc = documentRepository.findById(session.getDocumentId());
+            if (doc.isEmpty()) {
+                // deleted while being edited; there is nothing left to write to
+                session.close();
+                session.markFlushed(session.snapshot());
+                sessions.remove(session.getDocumentId(), session);
+                return;
+            }
+            doc.get().setContent(snapshot.content());
+            Document saved = documentRepository.save(doc.get());
+            documentCache.evict(saved.getId(), saved.getOwnerId());
+            session.markFlushed(snapshot);
+            documentService.createVersion(saved, snapshot.lastEditorId());
+        } catch (Exception e) {
+            // keep the session dirty so the next tick retries
+            System.err.println("Failed to flush document " + session.getDocumentId() + ": " + e.getMessage());
+        }
+    }
+}
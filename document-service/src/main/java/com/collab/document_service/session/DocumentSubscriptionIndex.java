@@ -0,0 +1,128 @@
+package com.collab.document_service.session;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tracks which WebSocket subscriptions are open on /topic/documents/{docId}
+ * and its /bin variant, so edits of a document nobody is watching are not
+ * encoded or handed to the broker at all, and the binary encoding is only
+ * produced while someone is subscribed to it.
+ *
+ * With the external relay broker, subscribers may sit on other instances that
+ * this index cannot see, so {@link #hasSubscribers} then always answers true.
+ */
+@Component
+public class DocumentSubscriptionIndex {
+
+    public static final String TOPIC_PREFIX = "/topic/documents/";
+
+    private static final Pattern DOCUMENT_TOPIC = Pattern.compile("^/topic/documents/(\\d+)(/bin)?$");
+
+    private final boolean localBroker;
+    // docId -> "sessionId/subscriptionId" keys, on either topic of the document
+    private final Map<Long, Set<String>> subscribers = new ConcurrentHashMap<>();
+    // docId -> keys of the subset subscribed to the /bin topic
+    private final Map<Long, Set<String>> binarySubscribers = new ConcurrentHashMap<>();
+    // sessionId -> subscriptionId -> topic, for unsubscribe frames that carry only the subscription id
+    private final Map<String, Map<String, Topic>> sessionSubscriptions = new ConcurrentHashMap<>();
+
+    private record Topic(Long docId, boolean binary) {}
+
+    public DocumentSubscriptionIndex(@Value("${websocket.broker.mode:simple}") String brokerMode) {
+        this.localBroker = !"relay".equalsIgnoreCase(brokerMode);
+    }
+
+    public static String topicFor(Long docId) {
+        return TOPIC_PREFIX + docId;
+    }
+
+    public boolean hasSubscribers(Long docId) {
+        if (!localBroker) return true;
+        Set<String> keys = subscribers.get(docId);
+        return keys != null && !keys.isEmpty();
+    }
+
+    public boolean hasBinarySubscribers(Long docId) {
+        if (!localBroker) return true;
+        Set<String> keys = binarySubscribers.get(docId);
+        return keys != null && !keys.isEmpty();
+    }
+
+    public int subscriberCount(Long docId) {
+        Set<String> keys = subscribers.get(docId);
+        return keys != null ? keys.size() : 0;
+    }
+
+    public int documentCount() {
+        return subscribers.size();
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        Topic topic = topicOf(headers.getDestination());
+        String sessionId = headers.getSessionId();
+        String subscriptionId = headers.getSubscriptionId();
+        if (topic == null || sessionId == null || subscriptionId == null) return;
+        sessionSubscriptions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>()).put(subscriptionId, topic);
+        String key = sessionId + "/" + subscriptionId;
+        subscribers.computeIfAbsent(topic.docId(), id -> ConcurrentHashMap.newKeySet()).add(key);
+        if (topic.binary()) {
+            binarySubscribers.computeIfAbsent(topic.docId(), id -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String sessionId = headers.getSessionId();
+        String subscriptionId = headers.getSubscriptionId();
+        if (sessionId == null || subscriptionId == null) return;
+        Map<String, Topic> subscriptions = sessionSubscriptions.get(sessionId);
+        Topic topic = subscriptions != null ? subscriptions.remove(subscriptionId) : null;
+        if (topic != null) {
+            remove(topic, sessionId + "/" + subscriptionId);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, Topic> subscriptions = sessionSubscriptions.remove(event.getSessionId());
+        if (subscriptions == null) return;
+        new HashMap<>(subscriptions).forEach((subscriptionId, topic) ->
+                remove(topic, event.getSessionId() + "/" + subscriptionId));
+    }
+
+    private void remove(Topic topic, String key) {
+        remove(subscribers, topic.docId(), key);
+        if (topic.binary()) {
+            remove(binarySubscribers, topic.docId(), key);
+        }
+    }
+
+    private static void remove(Map<Long, Set<String>> index, Long docId, String key) {
+        index.computeIfPresent(docId, (id, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private static Topic topicOf(String destination) {
+        if (destination == null) return null;
+        Matcher matcher = DOCUMENT_TOPIC.matcher(destination);
+        return matcher.matches() ? new Topic(Long.valueOf(matcher.group(1)), matcher.group(2) != null) : null;
+    }
+}
@@ -0,0 +1,117 @@
+package com.collab.document_service.session;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Piece table over the text of a live document. The original text is never
+ * copied; inserted text is appended to a single add buffer and the document is
+ * described by a list of pieces pointing into either buffer, so an edit costs
+ * O(number of pieces) instead of copying the whole content.
+ */
+public class PieceTable {
+
+    private record Piece(boolean added, int start, int length) {}
+
+    private String original;
+    private StringBuilder added = new StringBuilder();
+    private final List<Piece> pieces = new ArrayList<>();
+    private int length;
+
+    public PieceTable(String text) {
+        reset(text);
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public void insert(int position, String text) {
+        checkPosition(position);
+        if (text == null || text.isEmpty()) return;
+        Piece piece = new Piece(true, added.length(), text.length());
+        added.append(text);
+
+        int index = splitAt(position);
+        // extend the previous piece instead of adding a new one when typing continues at its end
+        if (index > 0) {
+            Piece previous = pieces.get(index - 1);
+            if (previous.added() && previous.start() + previous.length() == piece.start()) {
+                pieces.set(index - 1, new Piece(true, previous.start(), previous.length() + piece.length()));
+                length += text.length();
+                return;
+            }
+        }
+        pieces.add(index, piece);
+        length += text.length();
+    }
+
+    public void delete(int position, int count) {
+        checkPosition(position);
+        if (count <= 0) return;
+        if (position + count > length) {
+            throw new IllegalArgumentException("Delete of " + count + " at " + position + " exceeds length " + length);
+        }
+        int from = splitAt(position);
+        int to = splitAt(position + count);
+        pieces.subList(from, to).clear();
+        length -= count;
+    }
+
+    /**
+     * Replaces the whole text and drops the add buffer.
+     */
+    public void reset(String text) {
+        original = text != null ? text : "";
+        added = new StringBuilder();
+        pieces.clear();
+        if (!original.isEmpty()) {
+            pieces.add(new Piece(false, 0, original.length()));
+        }
+        length = original.length();
+    }
+
+    /**
+     * Collapses all pieces into a single original buffer, releasing add-buffer
+     * text that is no longer referenced. Called after each flush.
+     */
+    public void compact() {
+        reset(toString());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder(length);
+        for (Piece piece : pieces) {
+            if (piece.added()) {
+                out.append(added, piece.start(), piece.start() + piece.length());
+            } else {
+                out.append(original, piece.start(), piece.start() + piece.length());
+            }
+        }
+        return out.toString();
+    }
+
+    // Makes sure a piece boundary exists at the given offset and returns the index of the piece starting there
+    private int splitAt(int position) {
+        int offset = 0;
+        for (int i = 0; i < pieces.size(); i++) {
+            Piece piece = pieces.get(i);
+            if (offset == position) return i;
+            if (position < offset + piece.length()) {
+                int head = position - offset;
+                pieces.set(i, new Piece(piece.added(), piece.start(), head));
+                pieces.add(i + 1, new Piece(piece.added(), piece.start() + head, piece.length() - head));
+                return i + 1;
+            }
+            offset += piece.length();
+        }
+        return pieces.size();
+    }
+
+    private void checkPosition(int position) {
+        if (position < 0 || position > length) {
+            throw new IllegalArgumentException("Position " + position + " outside document of length " + length);
+        }
+    }
+}
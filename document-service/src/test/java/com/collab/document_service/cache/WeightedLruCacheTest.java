@@ -0,0 +1,44 @@
+package com.collab.document_service.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeightedLruCacheTest {
+
+    @Test
+    void testEvictsLeastRecentlyUsedByWeight() {
+        WeightedLruCache<String, String> cache = new WeightedLruCache<>(10, 60_000, String::length);
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        cache.get("a"); // b is now the least recently used
+        cache.put("c", "cccc");
+
+        assertEquals("aaaa", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("cccc", cache.get("c"));
+        assertEquals(1L, cache.getStats().get("evictions"));
+        assertEquals(8L, cache.getStats().get("weight"));
+    }
+
+    @Test
+    void testOversizedValueIsNotCached() {
+        WeightedLruCache<String, String> cache = new WeightedLruCache<>(3, 60_000, String::length);
+        cache.put("a", "aa");
+        cache.put("big", "bigger");
+
+        assertNull(cache.get("big"));
+        assertEquals("aa", cache.get("a"));
+    }
+
+    @Test
+    void testExpiredEntryIsAMiss() throws InterruptedException {
+        WeightedLruCache<String, String> cache = new WeightedLruCache<>(10, 1, String::length);
+        cache.put("a", "a");
+        Thread.sleep(5);
+
+        assertNull(cache.get("a"));
+        assertEquals(1L, cache.getStats().get("expirations"));
+        assertEquals(0L, cache.getStats().get("weight"));
+    }
+}
@@ -0,0 +1,51 @@
+package com.collab.document_service.codec;
+
+import com.collab.document_service.model.DocumentMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentMessageCodecTest {
+
+    @Test
+    void testSpliceRoundTrip() {
+        DocumentMessage message = new DocumentMessage(7L, null, 300L);
+        message.setPosition(1024);
+        message.setDeleteCount(2);
+        message.setText("ü");
+
+        byte[] frame = DocumentMessageCodec.encode(message);
+        DocumentMessage decoded = DocumentMessageCodec.decode(frame);
+
+        assertTrue(frame.length < 16);
+        assertEquals(7L, decoded.getDocumentId());
+        assertNull(decoded.getContent());
+        assertEquals(300L, decoded.getEditedByUserId());
+        assertEquals(1024, decoded.getPosition());
+        assertEquals(2, decoded.getDeleteCount());
+        assertEquals("ü", decoded.getText());
+    }
+
+    @Test
+    void testTruncatedFrameIsRejected() {
+        byte[] frame = DocumentMessageCodec.encode(new DocumentMessage(1L, "hello", 2L));
+
+        assertEquals("hello", DocumentMessageCodec.decode(frame).getContent());
+        assertThrows(IllegalArgumentException.class,
+                () -> DocumentMessageCodec.decode(Arrays.copyOf(frame, frame.length - 2)));
+    }
+
+    @Test
+    void testOutOfRangeNumbersAreRejected() {
+        // position of 2^40
+        byte[] hugePosition = { DocumentMessageCodec.VERSION, 1 << 3, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x20 };
+        // ten-byte varint that overflows into the sign bit
+        byte[] negativeLength = { DocumentMessageCodec.VERSION, 1 << 5, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+                (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x01 };
+
+        assertThrows(IllegalArgumentException.class, () -> DocumentMessageCodec.decode(hugePosition));
+        assertThrows(IllegalArgumentException.class, () -> DocumentMessageCodec.decode(negativeLength));
+    }
+}
@@ -1,26 +1,39 @@
 package com.collab.document_service.controller;
 
+import com.collab.document_service.cache.DocumentCache;
+import com.collab.document_service.dto.DocumentSummary;
 import com.collab.document_service.model.Document;
+import com.collab.document_service.repository.DocumentContentStore;
 import com.collab.document_service.repository.DocumentRepository;
+import com.collab.document_service.service.DocumentEditPublisher;
+import com.collab.document_service.service.DocumentService;
+import com.collab.document_service.service.DocumentShardExecutor;
+import com.collab.document_service.session.DocumentSessionManager;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
-import java.util.Arrays;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(DocumentController.class)
+@Import(DocumentCache.class)
 class DocumentControllerTest {
 
     @Autowired
@@ -29,18 +42,41 @@ class DocumentControllerTest {
     @MockitoBean
     private DocumentRepository documentRepository;
 
+    @MockitoBean
+    private DocumentService documentService;
+
+    @MockitoBean
+    private DocumentSessionManager sessionManager;
+
+    @MockitoBean
+    private DocumentContentStore contentStore;
+
+    @MockitoBean
+    private DocumentShardExecutor shardExecutor;
+
+    @MockitoBean
+    private DocumentEditPublisher editPublisher;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private DocumentCache documentCache;
+
     private Document testDocument;
 
     @BeforeEach
     void setUp() {
+        // the cache bean outlives a single test
+        documentCache.evictDeleted(1L);
+        documentCache.evictDeleted(2L);
         testDocument = new Document();
         testDocument.setId(1L);
         testDocument.setTitle("Test Document");
         testDocument.setContent("Test content");
         testDocument.setOwnerId(1L);
+        // the session manager is mocked; run the writes it is handed
+        when(sessionManager.saveThrough(any(), any(), any())).thenAnswer(inv -> ((Supplier<?>) inv.getArgument(2)).get());
     }
 
     @Test
@@ -51,12 +87,25 @@ class DocumentControllerTest {
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(testDocument)))
                 .andExpect(status().isCreated())
-                .andExpect(jsonPath("$.message").value("Document created successfully"))
-                .andExpect(jsonPath("$.document.id").value(1L));
+                .andExpect(jsonPath("$.id").value(1L))
+                .andExpect(jsonPath("$.title").value("Test Document"));
 
         verify(documentRepository, times(1)).save(any(Document.class));
     }
 
+    @Test
+    void testCreateDocument_OwnerFromGatewayHeader() throws Exception {
+        when(documentRepository.save(any(Document.class))).thenReturn(testDocument);
+
+        mockMvc.perform(post("/documents")
+                .header("X-User-Id", "5")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(testDocument)))
+                .andExpect(status().isCreated());
+
+        verify(documentRepository).save(argThat((Document d) -> d.getOwnerId() == 5L));
+    }
+
     @Test
     void testGetDocument_Success() throws Exception {
         when(documentRepository.findById(1L)).thenReturn(Optional.of(testDocument));
@@ -67,6 +116,108 @@ class DocumentControllerTest {
                 .andExpect(jsonPath("$.title").value("Test Document"));
     }
 
+    @Test
+    void testGetDocument_NotModifiedWhenEtagMatches() throws Exception {
+        when(documentRepository.findById(1L)).thenReturn(Optional.of(testDocument));
+
+        String etag = mockMvc.perform(get("/documents/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/documents/1").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        // same content, new title: the cached body is stale
+        testDocument.setTitle("Renamed");
+        documentCache.evict(1L, 1L);
+        mockMvc.perform(get("/documents/1").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Renamed"));
+    }
+
+    @Test
+    void testGetDocument_CharacterRange() throws Exception {
+        when(documentRepository.findById(1L)).thenReturn(Optional.of(testDocument));
+
+        mockMvc.perform(get("/documents/1").header("Range", "chars=5-11"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "chars 5-11/12"))
+                .andExpect(jsonPath("$.content").value("content"));
+        mockMvc.perform(get("/documents/1").param("offset", "0").param("length", "4"))
+                .andExpect(status().isPartialContent())
+                .andExpect(jsonPath("$.content").value("Test"));
+        mockMvc.perform(get("/documents/1").param("offset", "12"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "chars */12"));
+
+        testDocument.setContent("");
+        documentCache.evict(1L, 1L);
+        mockMvc.perform(get("/documents/1").header("Range", "chars=5-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "chars */0"));
+    }
+
+    @Test
+    void testPutDocumentContent() throws Exception {
+        when(documentRepository.findOwnerIdById(1L)).thenReturn(Optional.of(100L));
+        when(contentStore.write(eq(1L), any())).thenReturn(true);
+
+        mockMvc.perform(put("/documents/1/content").contentType(MediaType.TEXT_PLAIN).content("streamed"))
+                .andExpect(status().isNoContent());
+        verify(contentStore).write(eq(1L), any());
+        verify(documentService, never()).createVersion(any(), any());
+
+        when(sessionManager.getLiveContent(1L)).thenReturn(Optional.of("live"));
+        mockMvc.perform(put("/documents/1/content").contentType(MediaType.TEXT_PLAIN).content("streamed"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void testRevertDocument_UpdatesSessionWithoutVersion() throws Exception {
+        when(documentRepository.findById(1L)).thenReturn(Optional.of(testDocument));
+        when(documentRepository.save(any(Document.class))).thenAnswer(inv -> inv.getArgument(0));
+        doAnswer(inv -> {
+            ((Runnable) inv.getArgument(1)).run();
+            return null;
+        }).when(shardExecutor).execute(eq(1L), any(Runnable.class));
+
+        Document reverted = new Document();
+        reverted.setContent("Old content");
+        mockMvc.perform(put("/documents/1/revert").param("userId", "100")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(reverted)))
+                .andExpect(status().isNoContent());
+
+        verify(sessionManager).saveThrough(eq(1L), eq("Old content"), any());
+        verify(editPublisher).publish(argThat(m -> "Old content".equals(m.getContent()) && m.getEditedByUserId() == 100L));
+        verify(documentService, never()).createVersion(any(), any());
+    }
+
+    @Test
+    void testGetDocument_CachedUntilUpdated() throws Exception {
+        when(documentRepository.findById(2L)).thenAnswer(inv -> Optional.of(copy(testDocument, 2L)));
+        when(documentRepository.save(any(Document.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        mockMvc.perform(get("/documents/2")).andExpect(status().isOk());
+        mockMvc.perform(get("/documents/2"))
+                .andExpect(jsonPath("$.content").value("Test content"));
+        verify(documentRepository, times(1)).findById(2L);
+
+        Document updatedDoc = new Document();
+        updatedDoc.setContent("Changed");
+        mockMvc.perform(put("/documents/2")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updatedDoc)))
+                .andExpect(status().isOk());
+
+        testDocument.setContent("Changed");
+        mockMvc.perform(get("/documents/2"))
+                .andExpect(jsonPath("$.content").value("Changed"));
+        // the update's own lookup plus the reload after invalidation
+        verify(documentRepository, times(3)).findById(2L);
+    }
+
     @Test
     void testGetDocument_NotFound() throws Exception {
         when(documentRepository.findById(1L)).thenReturn(Optional.empty());
@@ -77,12 +228,43 @@ class DocumentControllerTest {
 
     @Test
     void testGetAllDocuments() throws Exception {
-        List<Document> documents = Arrays.asList(testDocument);
-        when(documentRepository.findAll()).thenReturn(documents);
+        testDocument.setCreatedAt(LocalDateTime.of(2024, 4, 1, 9, 30, 15));
+        when(documentRepository.findSummaries(any(Pageable.class))).thenReturn(List.of(summary(testDocument)));
 
         mockMvc.perform(get("/documents"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].id").value(1L));
+                .andExpect(jsonPath("$[0].id").value(1L))
+                .andExpect(jsonPath("$[0].contentLength").value(12))
+                // the admin list shows it
+                .andExpect(jsonPath("$[0].createdAt").value("2024-04-01T09:30:15"))
+                .andExpect(jsonPath("$[0].content").doesNotExist());
+    }
+
+    @Test
+    void testCountDocuments() throws Exception {
+        when(documentRepository.count()).thenReturn(120L);
+
+        mockMvc.perform(get("/documents/count"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(120));
+    }
+
+    @Test
+    void testGetAllDocuments_NextPageCursor() throws Exception {
+        LocalDateTime updatedAt = LocalDateTime.of(2024, 5, 1, 12, 0);
+        testDocument.setUpdatedAt(updatedAt);
+        when(documentRepository.findSummaries(PageRequest.of(0, 1))).thenReturn(List.of(summary(testDocument)));
+        when(documentRepository.findSummariesBefore(updatedAt, 1L, PageRequest.of(0, 1))).thenReturn(List.of());
+
+        mockMvc.perform(get("/documents").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "2024-05-01T12:00_1"));
+        mockMvc.perform(get("/documents").param("limit", "1").param("cursor", "2024-05-01T12:00_1"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$.length()").value(0));
+        mockMvc.perform(get("/documents").param("cursor", "garbage"))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -98,7 +280,48 @@ class DocumentControllerTest {
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(updatedDoc)))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.message").value("Document updated successfully"));
+                .andExpect(jsonPath("$.id").value(1L))
+                .andExpect(jsonPath("$.title").value("Updated Title"));
+    }
+
+    @Test
+    void testUpdateDocument_VersionByGatewayUser() throws Exception {
+        Document updatedDoc = new Document();
+        updatedDoc.setContent("Updated content");
+
+        when(documentRepository.findById(1L)).thenReturn(Optional.of(testDocument));
+        when(documentRepository.save(any(Document.class))).thenReturn(testDocument);
+
+        // the header set by the gateway wins over the userId parameter
+        mockMvc.perform(put("/documents/1").param("userId", "1").header("X-User-Id", "5")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updatedDoc)))
+                .andExpect(status().isOk());
+
+        verify(documentService).createVersion(any(Document.class), eq(5L));
+    }
+
+    @Test
+    void testUpdateDocument_OnlyOwnerChangesOwner() throws Exception {
+        Document updatedDoc = new Document();
+        updatedDoc.setOwnerId(5L);
+
+        when(documentRepository.findOwnerIdById(1L)).thenReturn(Optional.of(1L));
+        when(documentRepository.findById(1L)).thenReturn(Optional.of(testDocument));
+        when(documentRepository.save(any(Document.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // user 5 cannot take over user 1's document
+        mockMvc.perform(put("/documents/1").header("X-User-Id", "5")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updatedDoc)))
+                .andExpect(status().isForbidden());
+        verify(documentRepository, never()).save(any(Document.class));
+
+        mockMvc.perform(put("/documents/1").header("X-User-Id", "1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updatedDoc)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ownerId").value(5L));
     }
 
     @Test
@@ -108,19 +331,36 @@ class DocumentControllerTest {
 
         mockMvc.perform(delete("/documents/1"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.message").value("Document deleted successfully"));
+                .andExpect(content().string(""));
 
         verify(documentRepository, times(1)).deleteById(1L);
     }
 
     @Test
     void testGetDocumentsByOwner() throws Exception {
-        List<Document> documents = Arrays.asList(testDocument);
-        when(documentRepository.findByOwnerId(1L)).thenReturn(documents);
+        when(documentRepository.findSummariesByOwner(eq(1L), any(Pageable.class))).thenReturn(List.of(summary(testDocument)));
 
         mockMvc.perform(get("/documents/owner/1"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].ownerId").value(1L));
+        mockMvc.perform(get("/documents/owner/1").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title").value("Test Document"));
+        // both first pages come from one cached load
+        verify(documentRepository, times(1)).findSummariesByOwner(eq(1L), any(Pageable.class));
+    }
+
+    private DocumentSummary summary(Document doc) {
+        return new DocumentSummary(doc.getId(), doc.getTitle(), doc.getOwnerId(), doc.getCreatedAt(),
+                doc.getUpdatedAt(), doc.getContent().length());
     }
-}
 
+    private Document copy(Document source, Long id) {
+        Document doc = new Document();
+        doc.setId(id);
+        doc.setTitle(source.getTitle());
+        doc.setContent(source.getContent());
+        doc.setOwnerId(source.getOwnerId());
+        return doc;
+    }
+}
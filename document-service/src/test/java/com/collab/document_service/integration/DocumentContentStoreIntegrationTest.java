@@ -0,0 +1,51 @@
+package com.collab.document_service.integration;
+
+import com.collab.document_service.model.Document;
+import com.collab.document_service.repository.DocumentContentStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(DocumentContentStore.class)
+class DocumentContentStoreIntegrationTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private DocumentContentStore contentStore;
+
+    @Test
+    void testWriteThenStreamContent() {
+        Document doc = new Document();
+        doc.setTitle("Large");
+        doc.setContent("old");
+        Long id = entityManager.persistAndFlush(doc).getId();
+        entityManager.clear();
+
+        String content = "line é中😀\n".repeat(5000);
+        assertThat(contentStore.write(id, new StringReader(content))).isTrue();
+
+        StringWriter out = new StringWriter();
+        assertThat(contentStore.streamTo(id, out)).isTrue();
+        assertThat(out.toString()).isEqualTo(content);
+
+        Document stored = entityManager.find(Document.class, id);
+        assertThat(stored.getContentLength()).isEqualTo(content.length());
+        assertThat(stored.getContentHash()).isEqualTo(Document.hash(content));
+    }
+
+    @Test
+    void testMissingDocument() {
+        assertThat(contentStore.write(-1L, new StringReader("x"))).isFalse();
+        assertThat(contentStore.streamTo(-1L, new StringWriter())).isFalse();
+    }
+}
@@ -0,0 +1,60 @@
+package com.collab.document_service.integration;
+
+import com.collab.document_service.dto.DocumentSummary;
+import com.collab.document_service.model.Document;
+import com.collab.document_service.repository.DocumentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class DocumentRepositoryIntegrationTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Test
+    void testSummariesKeysetPagination() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < 5; i++) {
+            Document doc = new Document();
+            doc.setTitle("Doc " + i);
+            doc.setContent("x".repeat(i + 1));
+            doc.setOwnerId(i % 2 == 0 ? 7L : 8L);
+            Document saved = entityManager.persist(doc);
+            // @PrePersist stamps now(); spread them out so the order is known
+            entityManager.flush();
+            entityManager.getEntityManager()
+                    .createQuery("update Document d set d.updatedAt = :t where d.id = :id")
+                    .setParameter("t", base.plusMinutes(i))
+                    .setParameter("id", saved.getId())
+                    .executeUpdate();
+        }
+        entityManager.clear();
+
+        List<DocumentSummary> first = documentRepository.findSummaries(PageRequest.of(0, 2));
+        assertThat(first).extracting(DocumentSummary::title).containsExactly("Doc 4", "Doc 3");
+        assertThat(first.get(0).contentLength()).isEqualTo(5);
+        assertThat(first).allSatisfy(summary -> assertThat(summary.createdAt()).isNotNull());
+
+        DocumentSummary last = first.get(1);
+        List<DocumentSummary> second = documentRepository.findSummariesBefore(last.updatedAt(), last.id(), PageRequest.of(0, 2));
+        assertThat(second).extracting(DocumentSummary::title).containsExactly("Doc 2", "Doc 1");
+
+        List<DocumentSummary> owned = documentRepository.findSummariesByOwner(7L, PageRequest.of(0, 10));
+        assertThat(owned).extracting(DocumentSummary::title).containsExactly("Doc 4", "Doc 2", "Doc 0");
+        DocumentSummary middle = owned.get(1);
+        assertThat(documentRepository.findSummariesByOwnerBefore(7L, middle.updatedAt(), middle.id(), PageRequest.of(0, 10)))
+                .extracting(DocumentSummary::title).containsExactly("Doc 0");
+    }
+}
@@ -0,0 +1,46 @@
+package com.collab.document_service.service;
+
+import com.collab.document_service.model.DocumentMessage;
+import com.collab.document_service.session.DocumentSubscriptionIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class DocumentEditPublisherTest {
+
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final DocumentSubscriptionIndex subscriptionIndex = mock(DocumentSubscriptionIndex.class);
+    private final DocumentEditPublisher publisher =
+            new DocumentEditPublisher(messagingTemplate, new ObjectMapper(), subscriptionIndex, true);
+
+    @Test
+    void testUnwatchedDocumentIsNotEncoded() {
+        publisher.publish(new DocumentMessage(1L, "hello", 2L));
+
+        verifyNoInteractions(messagingTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testJsonSentAsBytesAndBinaryOnlyForBinarySubscribers() throws Exception {
+        when(subscriptionIndex.hasSubscribers(1L)).thenReturn(true);
+        publisher.publish(new DocumentMessage(1L, "hello", 2L));
+
+        ArgumentCaptor<Message<?>> sent = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate).send(eq("/topic/documents/1"), sent.capture());
+        byte[] json = (byte[]) sent.getValue().getPayload();
+        assertEquals("hello", new ObjectMapper().readTree(json).get("content").asText());
+        verify(messagingTemplate, never()).send(eq("/topic/documents/1/bin"), any());
+
+        when(subscriptionIndex.hasBinarySubscribers(1L)).thenReturn(true);
+        publisher.publish(new DocumentMessage(1L, "hello", 2L));
+        verify(messagingTemplate).send(eq("/topic/documents/1/bin"), any());
+    }
+}
@@ -0,0 +1,48 @@
+package com.collab.document_service.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class VersionPublisherTest {
+
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+    private final VersionPublisher publisher = new VersionPublisher(restTemplate, "http://versions", 2);
+
+    @Test
+    void testFullQueueDropsInsteadOfSendingInline() {
+        assertTrue(publisher.enqueue(1L, Map.of("content", "a")));
+        assertTrue(publisher.enqueue(2L, Map.of("content", "b")));
+        // replacing a waiting version is always allowed
+        assertTrue(publisher.enqueue(1L, Map.of("content", "a2")));
+
+        assertFalse(publisher.enqueue(3L, Map.of("content", "c")));
+
+        assertEquals(2, publisher.getPendingCount());
+        assertEquals(1, publisher.getDroppedCount());
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void testFailedBatchIsRequeuedWithinBound() {
+        when(restTemplate.postForEntity(anyString(), any(), eq(Object.class)))
+                .thenAnswer(invocation -> {
+                    // saves to other documents land while the request is in flight
+                    publisher.enqueue(3L, Map.of("content", "c"));
+                    throw new RestClientException("down");
+                });
+        publisher.enqueue(1L, Map.of("content", "a"));
+        publisher.enqueue(2L, Map.of("content", "b"));
+
+        publisher.publish();
+
+        assertEquals(2, publisher.getPendingCount());
+        assertEquals(1, publisher.getDroppedCount());
+    }
+}
@@ -0,0 +1,142 @@
+package com.collab.document_service.session;
+
+import com.collab.document_service.cache.DocumentCache;
+import com.collab.document_service.model.Document;
+import com.collab.document_service.model.DocumentMessage;
+import com.collab.document_service.repository.DocumentRepository;
+import com.collab.document_service.service.DocumentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class DocumentSessionManagerTest {
+
+    private final DocumentRepository repository = mock(DocumentRepository.class);
+    private final DocumentService documentService = mock(DocumentService.class);
+    private final DocumentSessionManager manager = new DocumentSessionManager(repository, documentService,
+            new DocumentCache(1 << 20, 1 << 20, 60000, 50));
+    private final Document stored = new Document();
+
+    @BeforeEach
+    void setUp() {
+        stored.setId(1L);
+        stored.setOwnerId(1L);
+        stored.setContent("abc");
+        when(repository.findById(1L)).thenReturn(Optional.of(stored));
+        when(repository.save(any(Document.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void testFlushWritesOnceUntilNextEdit() {
+        manager.applyEdit("s1", edit("d"));
+
+        manager.flushAll();
+        manager.flushAll();
+
+        assertEquals("abcd", stored.getContent());
+        verify(repository, times(1)).save(any(Document.class));
+        verify(documentService, times(1)).createVersion(any(Document.class), any());
+    }
+
+    @Test
+    void testLastEditorLeavingWritesAndClosesSession() {
+        DocumentSession first = manager.applyEdit("s1", edit("d"));
+
+        manager.onDisconnect(disconnect("s1"));
+
+        assertEquals("abcd", stored.getContent());
+        assertTrue(first.isClosed());
+        assertEquals(Optional.empty(), manager.getLiveContent(1L));
+        // an edit to the closed session is not applied to it
+        assertFalse(first.apply("s2", edit("x")));
+
+        DocumentSession second = manager.applyEdit("s2", edit("e"));
+        assertNotSame(first, second);
+        assertEquals("abcde", second.getContent());
+    }
+
+    @Test
+    void testEditReachingClosedSessionReopensFromSavedContent() {
+        DocumentSession first = manager.applyEdit("s1", edit("d"));
+        // closed but not yet written, as if the disconnect were still in progress
+        first.leave("s1");
+
+        DocumentSession second = manager.applyEdit("s2", edit("e"));
+
+        assertNotSame(first, second);
+        assertEquals("abcde", second.getContent());
+        assertEquals("abcd", stored.getContent());
+    }
+
+    @Test
+    void testRestWriteWaitsForRunningFlushAndWins() throws Exception {
+        manager.applyEdit("s1", edit("d"));
+        CountDownLatch flushSaving = new CountDownLatch(1);
+        CountDownLatch releaseFlush = new CountDownLatch(1);
+        when(repository.save(any(Document.class))).thenAnswer(invocation -> {
+            Document doc = invocation.getArgument(0);
+            if ("abcd".equals(doc.getContent())) {
+                // the flush has its snapshot and is writing it
+                flushSaving.countDown();
+                releaseFlush.await(5, TimeUnit.SECONDS);
+            }
+            return doc;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> flush = executor.submit(manager::flushAll);
+            assertTrue(flushSaving.await(5, TimeUnit.SECONDS));
+            Future<Optional<Document>> put = executor.submit(() -> manager.saveThrough(1L, "rest", () -> {
+                stored.setContent("rest");
+                return Optional.of(repository.save(stored));
+            }));
+
+            // the REST write cannot run while the flush holds the session
+            assertThrows(TimeoutException.class, () -> put.get(200, TimeUnit.MILLISECONDS));
+            releaseFlush.countDown();
+            flush.get(5, TimeUnit.SECONDS);
+            assertTrue(put.get(5, TimeUnit.SECONDS).isPresent());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals("rest", stored.getContent());
+        assertEquals(Optional.of("rest"), manager.getLiveContent(1L));
+        // nothing left for a later flush to write over it
+        manager.flushAll();
+        assertEquals("rest", stored.getContent());
+        verify(repository, times(2)).save(any(Document.class));
+    }
+
+    private DocumentMessage edit(String text) {
+        DocumentMessage message = new DocumentMessage();
+        message.setDocumentId(1L);
+        message.setText(text);
+        message.setEditedByUserId(1L);
+        return message;
+    }
+
+    private SessionDisconnectEvent disconnect(String sessionId) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.DISCONNECT);
+        headers.setSessionId(sessionId);
+        return new SessionDisconnectEvent(this, MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders()),
+                sessionId, CloseStatus.NORMAL);
+    }
+}
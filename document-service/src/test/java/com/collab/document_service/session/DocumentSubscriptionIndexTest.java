@@ -0,0 +1,72 @@
+package com.collab.document_service.session;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentSubscriptionIndexTest {
+
+    private final DocumentSubscriptionIndex index = new DocumentSubscriptionIndex("simple");
+
+    @Test
+    void testSubscribeAndUnsubscribe() {
+        index.onSubscribe(new SessionSubscribeEvent(this, frame(SimpMessageType.SUBSCRIBE, "s1", "sub-0", "/topic/documents/5")));
+        index.onSubscribe(new SessionSubscribeEvent(this, frame(SimpMessageType.SUBSCRIBE, "s2", "sub-0", "/topic/documents/5/bin")));
+        index.onSubscribe(new SessionSubscribeEvent(this, frame(SimpMessageType.SUBSCRIBE, "s1", "sub-1", "/topic/other")));
+
+        assertTrue(index.hasSubscribers(5L));
+        assertEquals(2, index.subscriberCount(5L));
+        assertFalse(index.hasSubscribers(6L));
+
+        index.onUnsubscribe(new SessionUnsubscribeEvent(this, frame(SimpMessageType.UNSUBSCRIBE, "s1", "sub-0", null)));
+        assertEquals(1, index.subscriberCount(5L));
+    }
+
+    @Test
+    void testDisconnectDropsAllSubscriptionsOfSession() {
+        index.onSubscribe(new SessionSubscribeEvent(this, frame(SimpMessageType.SUBSCRIBE, "s1", "sub-0", "/topic/documents/1")));
+        index.onSubscribe(new SessionSubscribeEvent(this, frame(SimpMessageType.SUBSCRIBE, "s1", "sub-1", "/topic/documents/2")));
+
+        index.onDisconnect(new SessionDisconnectEvent(this, frame(SimpMessageType.DISCONNECT, "s1", null, null),
+                "s1", CloseStatus.NORMAL));
+
+        assertFalse(index.hasSubscribers(1L));
+        assertFalse(index.hasSubscribers(2L));
+        assertEquals(0, index.documentCount());
+    }
+
+    @Test
+    void testBinaryTopicTrackedSeparately() {
+        index.onSubscribe(new SessionSubscribeEvent(this, frame(SimpMessageType.SUBSCRIBE, "s1", "sub-0", "/topic/documents/5")));
+        assertTrue(index.hasSubscribers(5L));
+        assertFalse(index.hasBinarySubscribers(5L));
+
+        index.onSubscribe(new SessionSubscribeEvent(this, frame(SimpMessageType.SUBSCRIBE, "s2", "sub-0", "/topic/documents/5/bin")));
+        assertTrue(index.hasBinarySubscribers(5L));
+
+        index.onUnsubscribe(new SessionUnsubscribeEvent(this, frame(SimpMessageType.UNSUBSCRIBE, "s2", "sub-0", null)));
+        assertFalse(index.hasBinarySubscribers(5L));
+        assertTrue(index.hasSubscribers(5L));
+    }
+
+    @Test
+    void testRelayModeAlwaysPublishes() {
+        assertTrue(new DocumentSubscriptionIndex("relay").hasSubscribers(9L));
+    }
+
+    private Message<byte[]> frame(SimpMessageType type, String sessionId, String subscriptionId, String destination) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(type);
+        headers.setSessionId(sessionId);
+        headers.setSubscriptionId(subscriptionId);
+        headers.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+    }
+}
@@ -0,0 +1,48 @@
+package com.collab.document_service.session;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PieceTableTest {
+
+    @Test
+    void testInsertAndDelete() {
+        PieceTable table = new PieceTable("hello world");
+        table.insert(5, ",");
+        table.insert(12, "!");
+        table.delete(0, 1);
+        table.insert(0, "H");
+
+        assertThat(table.toString()).isEqualTo("Hello, world!");
+        assertThat(table.length()).isEqualTo(13);
+    }
+
+    @Test
+    void testDeleteAcrossPieces() {
+        PieceTable table = new PieceTable("abcdef");
+        table.insert(3, "XYZ");
+        table.delete(2, 5);
+
+        assertThat(table.toString()).isEqualTo("abef");
+    }
+
+    @Test
+    void testTypingAtEndAndCompact() {
+        PieceTable table = new PieceTable("");
+        for (char c : "typing".toCharArray()) {
+            table.insert(table.length(), String.valueOf(c));
+        }
+        table.compact();
+
+        assertThat(table.toString()).isEqualTo("typing");
+    }
+
+    @Test
+    void testOutOfRange() {
+        PieceTable table = new PieceTable("abc");
+        assertThatThrownBy(() -> table.insert(4, "x")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> table.delete(2, 2)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
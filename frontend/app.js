@@ -1,10 +1,7 @@
 // API Configuration
+// Every API call goes through the gateway, which checks the session token;
+// the services' own ports are not called directly
 const API_BASE_URL = 'http://localhost:8080/api';
-const FALLBACK_URLS = {
-    users: 'http://localhost:8081',
-    documents: 'http://localhost:8082',
-    versions: 'http://localhost:8083'
-};
 
 // Connection status
 let connectionStatus = {
@@ -22,6 +19,17 @@ let documents = [];
 let users = [];
 let versions = [];
 
+// Send the session token issued at login with every request through the gateway
+const nativeFetch = window.fetch.bind(window);
+window.fetch = (url, options = {}) => {
+    if (currentUser && currentUser.token && String(url).startsWith(API_BASE_URL)) {
+        const headers = new Headers(options.headers || {});
+        headers.set('Authorization', `Bearer ${currentUser.token}`);
+        options = { ...options, headers };
+    }
+    return nativeFetch(url, options);
+};
+
 // Initialize Application
 document.addEventListener('DOMContentLoaded', () => {
     checkConnectionStatus();
@@ -397,31 +405,7 @@ async function handleLogin() {
         }
     } catch (error) {
         console.error('Login error:', error);
-        // Try fallback to direct service
-        try {
-            const fallbackResponse = await fetch(`${FALLBACK_URLS.users}/users/login`, {
-                method: 'POST',
-                headers: { 'Content-Type': 'application/json' },
-                body: JSON.stringify({ email, password })
-            });
-            const fallbackData = await fallbackResponse.json();
-            if (fallbackResponse.ok) {
-                currentUser = fallbackData;
-                localStorage.setItem('currentUser', JSON.stringify(fallbackData));
-                loginBtn.style.background = 'linear-gradient(135deg, #34A853 0%, #2E7D32 100%)';
-                loginBtn.querySelector('.btn-text').textContent = 'Success!';
-                setTimeout(() => {
-                    hideAuthModal();
-                    showEditor();
-                    updateUserUI();
-                    createNewDocument();
-                }, 500);
-            } else {
-                showError(errorDiv, fallbackData.message || 'Invalid email or password');
-            }
-        } catch (fallbackError) {
-            showError(errorDiv, `Connection error. Gateway: ${error.message}. Direct service also failed. Please ensure services are running on ports 8080, 8081, 8082, 8083.`);
-        }
+        showError(errorDiv, `Connection error: ${error.message}. Please ensure the API gateway is running on port 8080.`);
     } finally {
         setButtonLoading(loginBtn, false);
     }
@@ -477,29 +461,7 @@ async function handleRegister() {
         }
     } catch (error) {
         console.error('Register error:', error);
-        // Try fallback to direct service
-        try {
-            const fallbackResponse = await fetch(`${FALLBACK_URLS.users}/users/register`, {
-                method: 'POST',
-                headers: { 'Content-Type': 'application/json' },
-                body: JSON.stringify({ username, email, password })
-            });
-            const fallbackData = await fallbackResponse.json();
-            if (fallbackResponse.ok) {
-                registerBtn.style.background = 'linear-gradient(135deg, #34A853 0%, #2E7D32 100%)';
-                registerBtn.querySelector('.btn-text').textContent = 'Account Created!';
-                setTimeout(() => {
-                    document.getElementById('loginEmail').value = email;
-                    document.getElementById('loginPassword').value = password;
-                    switchAuthTab('login');
-                    setTimeout(() => handleLogin(), 300);
-                }, 1000);
-            } else {
-                showError(errorDiv, fallbackData.message || 'Registration failed. Email may already be in use.');
-            }
-        } catch (fallbackError) {
-            showError(errorDiv, `Connection error. Gateway: ${error.message}. Direct service also failed. Please ensure User Service is running on port 8081.`);
-        }
+        showError(errorDiv, `Connection error: ${error.message}. Please ensure the API gateway is running on port 8080.`);
     } finally {
         setButtonLoading(registerBtn, false);
     }
@@ -620,9 +582,6 @@ async function loadAdminUsers() {
     
     try {
         let response = await fetch(`${API_BASE_URL}/users`);
-        if (!response.ok) {
-            response = await fetch(`${FALLBACK_URLS.users}/users`);
-        }
         
         if (response.ok) {
             const users = await response.json();
@@ -659,9 +618,6 @@ async function loadAdminDocuments() {
     
     try {
         let response = await fetch(`${API_BASE_URL}/documents`);
-        if (!response.ok) {
-            response = await fetch(`${FALLBACK_URLS.documents}/documents`);
-        }
         
         if (response.ok) {
             const documents = await response.json();
@@ -700,9 +656,6 @@ async function loadAdminVersions() {
     try {
         // Get all documents first, then get versions for each
         let docsResponse = await fetch(`${API_BASE_URL}/documents`);
-        if (!docsResponse.ok) {
-            docsResponse = await fetch(`${FALLBACK_URLS.documents}/documents`);
-        }
         
         if (docsResponse.ok) {
             const documents = await docsResponse.json();
@@ -710,10 +663,7 @@ async function loadAdminVersions() {
             
             for (const doc of documents) {
                 try {
-                    let versionsResponse = await fetch(`${API_BASE_URL}/versions/document/${doc.id}`);
-                    if (!versionsResponse.ok) {
-                        versionsResponse = await fetch(`${FALLBACK_URLS.versions}/versions/document/${doc.id}`);
-                    }
+                    let versionsResponse = await fetch(`${API_BASE_URL}/versions/document/${doc.id}/history`);
                     if (versionsResponse.ok) {
                         const versions = await versionsResponse.json();
                         allVersions.push(...versions);
@@ -751,48 +701,23 @@ async function updateAdminStats() {
     try {
         // Users count
         let usersResponse = await fetch(`${API_BASE_URL}/users`);
-        if (!usersResponse.ok) {
-            usersResponse = await fetch(`${FALLBACK_URLS.users}/users`);
-        }
         if (usersResponse.ok) {
             const users = await usersResponse.json();
             document.getElementById('totalUsers').textContent = users.length || 0;
         }
         
-        // Documents count
-        let docsResponse = await fetch(`${API_BASE_URL}/documents`);
-        if (!docsResponse.ok) {
-            docsResponse = await fetch(`${FALLBACK_URLS.documents}/documents`);
-        }
+        // Documents and versions are paged; the count endpoints give the totals
+        let docsResponse = await fetch(`${API_BASE_URL}/documents/count`);
         if (docsResponse.ok) {
             const docs = await docsResponse.json();
-            document.getElementById('totalDocuments').textContent = docs.length || 0;
+            document.getElementById('totalDocuments').textContent = docs.count || 0;
         }
         
-        // Versions count (approximate)
-        let totalVersions = 0;
-        try {
-            let docsResponse = await fetch(`${API_BASE_URL}/documents`);
-            if (!docsResponse.ok) {
-                docsResponse = await fetch(`${FALLBACK_URLS.documents}/documents`);
-            }
-            if (docsResponse.ok) {
-                const documents = await docsResponse.json();
-                for (const doc of documents) {
-                    try {
-                        let versionsResponse = await fetch(`${API_BASE_URL}/versions/document/${doc.id}`);
-                        if (!versionsResponse.ok) {
-                            versionsResponse = await fetch(`${FALLBACK_URLS.versions}/versions/document/${doc.id}`);
-                        }
-                        if (versionsResponse.ok) {
-                            const versions = await versionsResponse.json();
-                            totalVersions += versions.length;
-                        }
-                    } catch (e) {}
-                }
-            }
-        } catch (e) {}
-        document.getElementById('totalVersions').textContent = totalVersions;
+        let versionsResponse = await fetch(`${API_BASE_URL}/versions/count`);
+        if (versionsResponse.ok) {
+            const versions = await versionsResponse.json();
+            document.getElementById('totalVersions').textContent = versions.count || 0;
+        }
     } catch (error) {
         console.error('Error updating stats:', error);
     }
@@ -816,9 +741,6 @@ window.deleteUserAdmin = async (id) => {
     
     try {
         let response = await fetch(`${API_BASE_URL}/users/${id}`, { method: 'DELETE' });
-        if (!response.ok) {
-            response = await fetch(`${FALLBACK_URLS.users}/users/${id}`, { method: 'DELETE' });
-        }
         if (response.ok) {
             alert('User deleted successfully');
             loadAdminUsers();
@@ -978,15 +900,31 @@ function subscribeToDocument(documentId) {
     document.getElementById('connectionStatus').classList.remove('status-disconnected');
 }
 
-// Version History
+// Version History: one page of metadata at a time, newest first; each entry loads its own content preview
+const VERSION_PAGE_SIZE = 20;
+let versionsCursor = null;
+
 async function loadVersions() {
+    versions = [];
+    versionsCursor = null;
+    await loadVersionPage();
+}
+
+async function loadMoreVersions() {
+    if (versionsCursor) await loadVersionPage();
+}
+
+async function loadVersionPage() {
     const documentId = document.getElementById('documentSelect').value;
     if (!documentId) return;
 
     try {
-        const response = await fetch(`${API_BASE_URL}/versions/document/${documentId}`);
+        const params = new URLSearchParams({ limit: VERSION_PAGE_SIZE });
+        if (versionsCursor) params.set('cursor', versionsCursor);
+        const response = await fetch(`${API_BASE_URL}/versions/document/${documentId}/history?${params}`);
         if (response.ok) {
-            versions = await response.json();
+            versions = versions.concat(await response.json());
+            versionsCursor = response.headers.get('X-Next-Cursor');
             displayVersions();
         }
     } catch (error) {
@@ -998,8 +936,6 @@ function displayVersions() {
     const container = document.getElementById('versionsList');
     container.innerHTML = '';
 
-    versions.sort((a, b) => new Date(b.timestamp) - new Date(a.timestamp));
-
     versions.forEach(version => {
         const item = document.createElement('div');
         item.className = 'version-item';
@@ -1008,18 +944,44 @@ function displayVersions() {
                 <span class="version-number">Version ${version.versionNumber || 'N/A'}</span>
                 <span class="version-date">${formatDate(version.timestamp)}</span>
             </div>
-            <div class="version-content">${version.content ? version.content.substring(0, 100) + '...' : 'No content'}</div>
+            <div class="version-content">${version.contentLength === 0 ? 'No content' : 'Loading...'}</div>
         `;
         item.addEventListener('click', () => revertToVersion(version));
         container.appendChild(item);
+        // versions saved before contentLength was recorded have none; load those too
+        if (version.contentLength !== 0) {
+            loadVersionPreview(version, item.querySelector('.version-content'));
+        }
     });
+
+    if (versionsCursor) {
+        const more = document.createElement('button');
+        more.className = 'btn-action';
+        more.textContent = 'Load older versions';
+        more.addEventListener('click', loadMoreVersions);
+        container.appendChild(more);
+    }
+}
+
+// Content of one version, fetched once and kept on the version as a preview
+async function loadVersionPreview(version, target) {
+    try {
+        if (version.preview === undefined) {
+            const response = await fetch(`${API_BASE_URL}/versions/${version.id}/content`);
+            if (!response.ok) throw new Error(`HTTP ${response.status}`);
+            version.preview = (await response.text()).substring(0, 100);
+        }
+        target.textContent = version.preview ? version.preview + '...' : 'No content';
+    } catch (error) {
+        target.textContent = 'Content unavailable';
+    }
 }
 
 async function revertToVersion(version) {
     if (!confirm('Are you sure you want to revert to this version?')) return;
 
     try {
-        const response = await fetch(`${API_BASE_URL}/versions/revert/${version.documentId}/${version.id}`, {
+        const response = await fetch(`${API_BASE_URL}/versions/revert/${version.documentId}/${version.id}?userId=${currentUser.userId}`, {
             method: 'POST'
         });
 
@@ -1183,14 +1145,20 @@ const socket = new SockJS('http://localhost:8084/ws');
 const stompClient = Stomp.over(socket);
 stompClient.debug = null; // disable verbose logs
 
-stompClient.connect({}, function(frame) {
+// the session token identifies the user to collaboration-service; presence takes the userId from it
+const stompHeaders = currentUser && currentUser.token ? { Authorization: `Bearer ${currentUser.token}` } : {};
+stompClient.connect(stompHeaders, function(frame) {
   console.log('Connected: ' + frame);
   const docId = 1; // current document id
   stompClient.subscribe('/topic/doc/' + docId, function(message) {
-    const msg = JSON.parse(message.body);
-    // msg.content contains latest content
-    // Update editor content, but guard to avoid infinite loops
-    editor.setValue(msg.content); // example
+    const frame = JSON.parse(message.body);
+    // edits within a short window arrive together as one "batch" frame
+    const msgs = frame.op === 'batch' ? frame.messages : [frame];
+    msgs.forEach(function(msg) {
+      // msg.content contains latest content
+      // Update editor content, but guard to avoid infinite loops
+      editor.setValue(msg.content); // example
+    });
   });
 
   // When user types (simplified: on debounce), send full content
@@ -1,7 +1,18 @@
 package com.collab.version_service.controller;
 
+import com.collab.version_service.diff.TextDiff;
+import com.collab.version_service.dto.VersionBatchResult;
+import com.collab.version_service.dto.VersionDiff;
+import com.collab.version_service.dto.VersionSummary;
 import com.collab.version_service.model.DocumentVersion;
+import com.collab.version_service.model.UserContribution;
+import com.collab.version_service.repository.VersionContentStore;
 import com.collab.version_service.repository.VersionRepository;
+import com.collab.version_service.service.ContributionService;
+import com.collab.version_service.service.DocumentSyncClient;
+import com.collab.version_service.service.VersionBatchService;
+import com.collab.version_service.service.VersionDiffService;
+import com.collab.version_service.service.VersionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -9,11 +20,20 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -24,74 +44,220 @@ import java.util.stream.Collectors;
 @Tag(name = "Version Control", description = "APIs for maintaining version history, reverting documents, and tracking user contributions")
 public class VersionController {
 
+    private static final int MAX_HISTORY_PAGE = 200;
+    private static final int RECENT_CONTRIBUTIONS = 100;
+    // set by the api-gateway from the caller's session token; preferred over any userId parameter
+    static final String USER_ID_HEADER = "X-User-Id";
+
     private final VersionRepository repository;
+    private final VersionService versionService;
+    private final VersionBatchService batchService;
+    private final ContributionService contributionService;
+    private final VersionContentStore contentStore;
+    private final VersionDiffService diffService;
+    private final DocumentSyncClient documentSync;
 
-    public VersionController(VersionRepository repository) {
+    public VersionController(VersionRepository repository, VersionService versionService,
+                             VersionBatchService batchService, ContributionService contributionService, VersionContentStore contentStore,
+                             VersionDiffService diffService, DocumentSyncClient documentSync) {
         this.repository = repository;
+        this.versionService = versionService;
+        this.batchService = batchService;
+        this.contributionService = contributionService;
+        this.contentStore = contentStore;
+        this.diffService = diffService;
+        this.documentSync = documentSync;
     }
 
-    @Operation(summary = "Save a new version", description = "Saves a new version of a document with content and editor information")
+    @Operation(summary = "Save a new version", description = "Saves a new version of a document with content and editor information. "
+            + "If the content is identical to the latest version, that version is returned and nothing is stored")
     @ApiResponse(responseCode = "201", description = "Version saved successfully",
             content = @Content(schema = @Schema(implementation = DocumentVersion.class)))
     @PostMapping
-    public ResponseEntity<?> saveVersion(@RequestBody DocumentVersion version) {
+    public ResponseEntity<?> saveVersion(
+            @RequestBody DocumentVersion version,
+            @Parameter(hidden = true) @RequestHeader(value = USER_ID_HEADER, required = false) Long callerId) {
+        if (callerId != null) version.setEditedByUserId(callerId);
         version.setTimestamp(LocalDateTime.now());
-        DocumentVersion saved = repository.save(version);
+        DocumentVersion saved = versionService.save(version);
         Map<String, Object> response = new HashMap<>();
         response.put("message", "Version saved successfully");
         response.put("version", saved);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
-    @Operation(summary = "Get all versions for a document", description = "Retrieves all versions of a specific document")
+    @Operation(summary = "Save versions in bulk", description = "Saves several versions in one request, as sent by "
+            + "document-service's batched publisher. Each version is saved on its own; entries that fail are listed "
+            + "under `failed` and do not stop the others")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "201", description = "Versions saved successfully"),
+        @ApiResponse(responseCode = "207", description = "Some versions could not be saved, see `failed`")
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<?> saveVersions(@RequestBody List<DocumentVersion> versions) {
+        LocalDateTime now = LocalDateTime.now();
+        versions.forEach(version -> version.setTimestamp(now));
+        VersionBatchResult result = batchService.saveAll(versions);
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", result.failed().isEmpty() ? "Versions saved successfully"
+                : result.failed().size() + " of " + versions.size() + " versions could not be saved");
+        response.put("count", result.saved().size());
+        response.put("versions", result.saved());
+        response.put("failed", result.failed());
+        return ResponseEntity.status(result.failed().isEmpty() ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS).body(response);
+    }
+
+    @Operation(summary = "Get recent versions for a document", deprecated = true, description = "The newest "
+            + MAX_HISTORY_PAGE + " versions with their full content, oldest first. Every delta version is rebuilt, so "
+            + "use GET /versions/document/{documentId}/history and GET /versions/{id}/content instead")
     @ApiResponse(responseCode = "200", description = "List of versions retrieved successfully")
     @GetMapping("/document/{documentId}")
     public ResponseEntity<List<DocumentVersion>> getVersions(
             @Parameter(description = "Document ID", required = true) @PathVariable Long documentId) {
-        List<DocumentVersion> versions = repository.findByDocumentId(documentId);
-        return ResponseEntity.ok(versions);
+        List<DocumentVersion> versions = new ArrayList<>(
+                repository.findHistoryWithContent(documentId, PageRequest.of(0, MAX_HISTORY_PAGE)));
+        Collections.reverse(versions);
+        return ResponseEntity.ok(versionService.withContent(versions));
+    }
+
+    @Operation(summary = "Count versions", description = "Total number of versions kept across all documents")
+    @GetMapping("/count")
+    public ResponseEntity<Map<String, Object>> countVersions() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("count", repository.count());
+        return ResponseEntity.ok(response);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<DocumentVersion> getVersion(@PathVariable Long id) {
         return repository.findById(id)
-                .map(version -> ResponseEntity.ok(version))
+                .map(version -> ResponseEntity.ok(versionService.withContent(version)))
                 .orElse(ResponseEntity.notFound().build());
     }
 
-    @Operation(summary = "Get version history", description = "Retrieves version history sorted by timestamp (newest first)")
+    @Operation(summary = "Get version content", description = "The full text of one version as text/plain. Keyframes are "
+            + "streamed from the database; delta versions are rebuilt first and written without a JSON wrapper")
+    @ApiResponse(responseCode = "200", description = "Content streamed")
+    @GetMapping(value = "/{id}/content", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<StreamingResponseBody> getVersionContent(@PathVariable Long id) {
+        if (!repository.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        StreamingResponseBody body = out -> {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            if (!contentStore.streamKeyframeTo(id, writer)) {
+                String content = repository.findById(id).map(versionService::resolveContent).orElse("");
+                writer.write(content != null ? content : "");
+                writer.flush();
+            }
+        };
+        return ResponseEntity.ok().contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8)).body(body);
+    }
+
+    @Operation(summary = "Diff two versions", description = "Line or word level changes from one version of a document "
+            + "to another (Myers diff). Unchanged runs are cut to `context` lines or words around each change")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Diff computed"),
+        @ApiResponse(responseCode = "400", description = "Unknown granularity"),
+        @ApiResponse(responseCode = "404", description = "Version not found, or the versions belong to different documents")
+    })
+    @GetMapping("/{fromId}/diff/{toId}")
+    public ResponseEntity<VersionDiff> diffVersions(
+            @Parameter(description = "Older version ID", required = true) @PathVariable Long fromId,
+            @Parameter(description = "Newer version ID", required = true) @PathVariable Long toId,
+            @Parameter(description = "line or word") @RequestParam(defaultValue = "line") String granularity,
+            @Parameter(description = "Unchanged lines or words kept around each change; -1 keeps all")
+            @RequestParam(defaultValue = "3") int context) {
+        TextDiff.Granularity unit;
+        try {
+            unit = TextDiff.Granularity.valueOf(granularity.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return diffService.diff(fromId, toId, unit, Math.max(-1, context))
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @Operation(summary = "Get version history", description = "Retrieves one page of version history, newest first. "
+            + "Returns metadata only unless includeContent is set; the cursor for the next page is in the X-Next-Cursor header")
     @ApiResponse(responseCode = "200", description = "Version history retrieved successfully")
     @GetMapping("/document/{documentId}/history")
-    public ResponseEntity<List<DocumentVersion>> getVersionHistory(
-            @Parameter(description = "Document ID", required = true) @PathVariable Long documentId) {
-        List<DocumentVersion> versions = repository.findByDocumentId(documentId);
-        // Sort by timestamp descending (newest first)
-        versions.sort((v1, v2) -> v2.getTimestamp().compareTo(v1.getTimestamp()));
-        return ResponseEntity.ok(versions);
+    public ResponseEntity<List<?>> getVersionHistory(
+            @Parameter(description = "Document ID", required = true) @PathVariable Long documentId,
+            @Parameter(description = "X-Next-Cursor value of the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (max " + MAX_HISTORY_PAGE + ")") @RequestParam(defaultValue = "50") int limit,
+            @Parameter(description = "Include full content of each version") @RequestParam(defaultValue = "false") boolean includeContent) {
+        Pageable page = PageRequest.of(0, Math.max(1, Math.min(limit, MAX_HISTORY_PAGE)));
+        LocalDateTime cursorTimestamp = null;
+        Long cursorId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            int separator = cursor.lastIndexOf('_');
+            try {
+                cursorTimestamp = LocalDateTime.parse(cursor.substring(0, separator));
+                cursorId = Long.parseLong(cursor.substring(separator + 1));
+            } catch (RuntimeException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+
+        String nextCursor = null;
+        List<?> body;
+        if (includeContent) {
+            List<DocumentVersion> versions = cursorId == null
+                    ? repository.findHistoryWithContent(documentId, page)
+                    : repository.findHistoryWithContentBefore(documentId, cursorTimestamp, cursorId, page);
+            if (versions.size() == page.getPageSize()) {
+                DocumentVersion last = versions.get(versions.size() - 1);
+                nextCursor = last.getTimestamp() + "_" + last.getId();
+            }
+            body = versionService.withContent(versions);
+        } else {
+            List<VersionSummary> versions = cursorId == null
+                    ? repository.findHistory(documentId, page)
+                    : repository.findHistoryBefore(documentId, cursorTimestamp, cursorId, page);
+            if (versions.size() == page.getPageSize()) {
+                VersionSummary last = versions.get(versions.size() - 1);
+                nextCursor = last.timestamp() + "_" + last.id();
+            }
+            body = versions;
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextCursor != null) {
+            response.header("X-Next-Cursor", nextCursor);
+        }
+        return response.body(body);
     }
 
-    @Operation(summary = "Revert to previous version", description = "Reverts a document to a specific previous version")
+    @Operation(summary = "Revert to previous version", description = "Records a version that points at the chosen "
+            + "version's content (nothing is copied), then pushes that content to document-service and to anyone editing "
+            + "the document")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Document reverted successfully"),
-        @ApiResponse(responseCode = "404", description = "Version not found")
+        @ApiResponse(responseCode = "404", description = "Version not found"),
+        @ApiResponse(responseCode = "502", description = "Revert recorded, but document-service could not be updated")
     })
     @PostMapping("/revert/{documentId}/{versionId}")
     public ResponseEntity<?> revertVersion(
             @Parameter(description = "Document ID", required = true) @PathVariable Long documentId,
-            @Parameter(description = "Version ID to revert to", required = true) @PathVariable Long versionId) {
+            @Parameter(description = "Version ID to revert to", required = true) @PathVariable Long versionId,
+            @Parameter(description = "User reverting; defaults to the editor of the chosen version")
+            @RequestParam(required = false) Long userId,
+            @Parameter(hidden = true) @RequestHeader(value = USER_ID_HEADER, required = false) Long callerId) {
         DocumentVersion version = repository.findById(versionId).orElse(null);
         if (version != null && version.getDocumentId().equals(documentId)) {
-            DocumentVersion newVersion = new DocumentVersion();
-            newVersion.setDocumentId(documentId);
-            newVersion.setContent(version.getContent());
-            newVersion.setEditedByUserId(version.getEditedByUserId());
-            newVersion.setTimestamp(LocalDateTime.now());
-            newVersion.setVersionNumber(getNextVersionNumber(documentId));
-            DocumentVersion saved = repository.save(newVersion);
-            
+            Long editor = callerId != null ? callerId : userId != null ? userId : version.getEditedByUserId();
+            DocumentVersion saved = versionService.revert(version, editor);
+            boolean pushed = documentSync.pushRevert(documentId, saved.getContent(), editor);
+
             Map<String, Object> response = new HashMap<>();
-            response.put("message", "Document reverted to version " + versionId);
             response.put("newVersion", saved);
+            if (!pushed) {
+                response.put("message", "Revert to version " + versionId + " recorded, but the document could not be updated");
+                return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(response);
+            }
+            response.put("message", "Document reverted to version " + versionId);
             return ResponseEntity.ok(response);
         }
         Map<String, String> error = new HashMap<>();
@@ -99,47 +265,86 @@ public class VersionController {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
 
-    @Operation(summary = "Track user contributions", description = "Tracks and displays user contributions to a document")
+    @Operation(summary = "Name a version", description = "Sets the version's label; named versions are kept by history "
+            + "compaction. A blank label removes the name")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Label updated"),
+        @ApiResponse(responseCode = "404", description = "Version not found")
+    })
+    @PutMapping("/{id}/label")
+    public ResponseEntity<?> labelVersion(
+            @Parameter(description = "Version ID", required = true) @PathVariable Long id,
+            @Parameter(description = "Name of the version") @RequestParam(required = false) String label) {
+        if (label != null && label.trim().length() > 200) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Label is longer than 200 characters"));
+        }
+        DocumentVersion version = repository.findById(id).orElse(null);
+        if (version == null) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Version not found");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        }
+        version.setLabel(label != null && !label.isBlank() ? label.trim() : null);
+        repository.save(version);
+        Map<String, Object> response = new HashMap<>();
+        response.put("id", id);
+        response.put("label", version.getLabel());
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "Track user contributions", description = "Tracks and displays user contributions to a document. "
+            + "Totals come from the maintained contribution counts; the contributions list holds the most recent "
+            + RECENT_CONTRIBUTIONS + " versions")
     @ApiResponse(responseCode = "200", description = "Contributions retrieved successfully")
     @GetMapping("/document/{documentId}/contributions")
     public ResponseEntity<Map<String, Object>> trackContributions(
             @Parameter(description = "Document ID", required = true) @PathVariable Long documentId) {
-        List<DocumentVersion> versions = repository.findByDocumentId(documentId);
-        
-        Map<Long, Long> userContributions = versions.stream()
-                .collect(Collectors.groupingBy(
-                        DocumentVersion::getEditedByUserId,
-                        Collectors.counting()
-                ));
-        
+        List<UserContribution> counts = contributionService.forDocument(documentId);
+
+        Map<Long, Long> userContributions = counts.stream()
+                .collect(Collectors.toMap(UserContribution::getUserId, UserContribution::getVersionCount));
+
         Map<String, Object> response = new HashMap<>();
         response.put("documentId", documentId);
-        response.put("totalVersions", versions.size());
+        response.put("totalVersions", counts.stream().mapToLong(UserContribution::getVersionCount).sum());
         response.put("userContributions", userContributions);
-        response.put("contributions", versions.stream()
+        response.put("contributions", repository.findHistory(documentId, PageRequest.of(0, RECENT_CONTRIBUTIONS)).stream()
                 .map(v -> {
                     Map<String, Object> contrib = new HashMap<>();
-                    contrib.put("userId", v.getEditedByUserId());
-                    contrib.put("timestamp", v.getTimestamp());
-                    contrib.put("versionId", v.getId());
+                    contrib.put("userId", v.editedByUserId());
+                    contrib.put("timestamp", v.timestamp());
+                    contrib.put("versionId", v.id());
                     return contrib;
                 })
                 .collect(Collectors.toList()));
-        
+
         return ResponseEntity.ok(response);
     }
 
+    @Operation(summary = "Get user contributions", description = "One page of the versions a user has created, newest "
+            + "first, without content; the cursor for the next page is in the X-Next-Cursor header. Per-document totals "
+            + "are at /summary")
+    @ApiResponse(responseCode = "200", description = "Contributions retrieved successfully")
     @GetMapping("/user/{userId}/contributions")
-    public ResponseEntity<List<DocumentVersion>> getUserContributions(@PathVariable Long userId) {
-        List<DocumentVersion> allVersions = repository.findAll();
-        List<DocumentVersion> userVersions = allVersions.stream()
-                .filter(v -> v.getEditedByUserId().equals(userId))
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(userVersions);
+    public ResponseEntity<List<VersionSummary>> getUserContributions(
+            @Parameter(description = "User ID", required = true) @PathVariable Long userId,
+            @Parameter(description = "X-Next-Cursor value of the previous page") @RequestParam(required = false) Long cursor,
+            @Parameter(description = "Page size (max " + MAX_HISTORY_PAGE + ")") @RequestParam(defaultValue = "50") int limit) {
+        Pageable page = PageRequest.of(0, Math.max(1, Math.min(limit, MAX_HISTORY_PAGE)));
+        List<VersionSummary> versions = cursor == null
+                ? repository.findByEditor(userId, page)
+                : repository.findByEditorBefore(userId, cursor, page);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (versions.size() == page.getPageSize()) {
+            response.header("X-Next-Cursor", String.valueOf(versions.get(versions.size() - 1).id()));
+        }
+        return response.body(versions);
     }
 
-    private Integer getNextVersionNumber(Long documentId) {
-        List<DocumentVersion> versions = repository.findByDocumentId(documentId);
-        return versions.size() + 1;
+    @Operation(summary = "Get user contribution counts", description = "Number of versions a user has created, per document")
+    @GetMapping("/user/{userId}/contributions/summary")
+    public ResponseEntity<List<UserContribution>> getUserContributionSummary(@PathVariable Long userId) {
+        return ResponseEntity.ok(contributionService.forUser(userId));
     }
 }
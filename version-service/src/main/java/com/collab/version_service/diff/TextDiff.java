@@ -0,0 +1,177 @@
+package com.collab.version_service.diff;
+
+import com.collab.version_service.dto.DiffEdit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Myers diff between two texts, on lines or on words. Common prefix and
+ * suffix are trimmed before the O((N+M)D) search; when the two sides differ
+ * by more than {@link #MAX_EDIT_DISTANCE} tokens the remaining middle is
+ * reported as one delete plus one insert instead of being searched further.
+ */
+public final class TextDiff {
+
+    public enum Granularity { LINE, WORD }
+
+    static final int MAX_EDIT_DISTANCE = 1000;
+
+    // words, runs of whitespace, or single punctuation characters
+    private static final Pattern WORD_TOKEN = Pattern.compile("\\w+|\\s+|[^\\w\\s]", Pattern.UNICODE_CHARACTER_CLASS);
+
+    private enum Op { EQUAL, DELETE, INSERT }
+
+    private TextDiff() {}
+
+    /**
+     * Returns the edits turning {@code from} into {@code to}. Runs of
+     * unchanged tokens longer than twice {@code context} are cut down to
+     * {@code context} tokens on each side of a "skip" edit; a negative
+     * context keeps every unchanged token.
+     */
+    public static List<DiffEdit> diff(String from, String to, Granularity granularity, int context) {
+        List<String> a = tokenize(from != null ? from : "", granularity);
+        List<String> b = tokenize(to != null ? to : "", granularity);
+        int[] ia = new int[a.size()];
+        int[] ib = new int[b.size()];
+        Map<String, Integer> ids = new HashMap<>();
+        for (int i = 0; i < ia.length; i++) ia[i] = ids.computeIfAbsent(a.get(i), t -> ids.size());
+        for (int i = 0; i < ib.length; i++) ib[i] = ids.computeIfAbsent(b.get(i), t -> ids.size());
+
+        int prefix = 0;
+        while (prefix < ia.length && prefix < ib.length && ia[prefix] == ib[prefix]) prefix++;
+        int suffix = 0;
+        while (suffix < ia.length - prefix && suffix < ib.length - prefix
+                && ia[ia.length - 1 - suffix] == ib[ib.length - 1 - suffix]) suffix++;
+
+        List<Op> ops = new ArrayList<>(ia.length + ib.length);
+        for (int i = 0; i < prefix; i++) ops.add(Op.EQUAL);
+        ops.addAll(middle(ia, prefix, ia.length - suffix, ib, prefix, ib.length - suffix));
+        for (int i = 0; i < suffix; i++) ops.add(Op.EQUAL);
+        return toEdits(ops, a, b, context);
+    }
+
+    static List<String> tokenize(String text, Granularity granularity) {
+        List<String> tokens = new ArrayList<>();
+        if (granularity == Granularity.WORD) {
+            Matcher matcher = WORD_TOKEN.matcher(text);
+            while (matcher.find()) tokens.add(matcher.group());
+            return tokens;
+        }
+        int start = 0;
+        while (start < text.length()) {
+            int newline = text.indexOf('\n', start);
+            int end = newline < 0 ? text.length() : newline + 1;
+            tokens.add(text.substring(start, end));
+            start = end;
+        }
+        return tokens;
+    }
+
+    // Myers' greedy search over a[aFrom, aTo) and b[bFrom, bTo), keeping each round's V for the backtrack
+    private static List<Op> middle(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo) {
+        int n = aTo - aFrom, m = bTo - bFrom;
+        int max = n + m;
+        List<Op> ops = new ArrayList<>();
+        if (max == 0) return ops;
+        int offset = max + 1;
+        int[] v = new int[2 * max + 3];
+        List<int[]> trace = new ArrayList<>();
+        for (int d = 0; d <= max; d++) {
+            if (d > MAX_EDIT_DISTANCE) {
+                for (int i = 0; i < n; i++) ops.add(Op.DELETE);
+                for (int i = 0; i < m; i++) ops.add(Op.INSERT);
+                return ops;
+            }
+            int[] snapshot = new int[2 * d + 1];
+            System.arraycopy(v, offset - d, snapshot, 0, snapshot.length);
+            trace.add(snapshot);
+            for (int k = -d; k <= d; k += 2) {
+                int x = (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1]))
+                        ? v[offset + k + 1] : v[offset + k - 1] + 1;
+                int y = x - k;
+                while (x < n && y < m && a[aFrom + x] == b[bFrom + y]) {
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+                if (x >= n && y >= m) {
+                    return backtrack(trace, n, m);
+                }
+            }
+        }
+        throw new IllegalStateException("Myers search did not terminate");
+    }
+
+    private static List<Op> backtrack(List<int[]> trace, int n, int m) {
+        List<Op> reversed = new ArrayList<>();
+        int x = n, y = m;
+        for (int d = trace.size() - 1; d > 0; d--) {
+            int[] previous = trace.get(d);
+            int k = x - y;
+            int prevK = (k == -d || (k != d && previous[k - 1 + d] < previous[k + 1 + d])) ? k + 1 : k - 1;
+            int prevX = previous[prevK + d];
+            int prevY = prevX - prevK;
+            while (x > prevX && y > prevY) {
+                reversed.add(Op.EQUAL);
+                x--;
+                y--;
+            }
+            reversed.add(x == prevX ? Op.INSERT : Op.DELETE);
+            x = prevX;
+            y = prevY;
+        }
+        while (x > 0 && y > 0) {
+            reversed.add(Op.EQUAL);
+            x--;
+            y--;
+        }
+        List<Op> ops = new ArrayList<>(reversed.size());
+        for (int i = reversed.size() - 1; i >= 0; i--) ops.add(reversed.get(i));
+        return ops;
+    }
+
+    private static List<DiffEdit> toEdits(List<Op> ops, List<String> a, List<String> b, int context) {
+        List<DiffEdit> edits = new ArrayList<>();
+        int ai = 0, bi = 0, i = 0;
+        while (i < ops.size()) {
+            Op op = ops.get(i);
+            int j = i;
+            while (j < ops.size() && ops.get(j) == op) j++;
+            int count = j - i;
+            if (op == Op.DELETE) {
+                edits.add(new DiffEdit("delete", count, join(a, ai, ai + count)));
+                ai += count;
+            } else if (op == Op.INSERT) {
+                edits.add(new DiffEdit("insert", count, join(b, bi, bi + count)));
+                bi += count;
+            } else {
+                // leading and trailing runs only need context on their inner side
+                int head = i == 0 ? 0 : context;
+                int tail = j == ops.size() ? 0 : context;
+                if (context < 0 || count <= head + tail) {
+                    edits.add(new DiffEdit("equal", count, join(a, ai, ai + count)));
+                } else {
+                    if (head > 0) edits.add(new DiffEdit("equal", head, join(a, ai, ai + head)));
+                    edits.add(new DiffEdit("skip", count - head - tail, null));
+                    if (tail > 0) edits.add(new DiffEdit("equal", tail, join(a, ai + count - tail, ai + count)));
+                }
+                ai += count;
+                bi += count;
+            }
+            i = j;
+        }
+        return edits;
+    }
+
+    private static String join(List<String> tokens, int from, int to) {
+        StringBuilder text = new StringBuilder();
+        for (int i = from; i < to; i++) text.append(tokens.get(i));
+        return text.toString();
+    }
+}
@@ -0,0 +1,12 @@
+package com.collab.version_service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One run of a diff: {@code equal}, {@code delete} or {@code insert} with its
+ * text, or {@code skip} for unchanged tokens left out beyond the context.
+ * {@code count} is the number of lines or words in the run.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record DiffEdit(String op, int count, String text) {
+}
@@ -0,0 +1,13 @@
+package com.collab.version_service.dto;
+
+import com.collab.version_service.model.DocumentVersion;
+
+import java.util.List;
+
+/**
+ * Outcome of a batch save: the versions stored and the entries that failed.
+ */
+public record VersionBatchResult(List<DocumentVersion> saved, List<Failure> failed) {
+
+    public record Failure(Long documentId, String message) {}
+}
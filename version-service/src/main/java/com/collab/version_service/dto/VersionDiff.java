@@ -0,0 +1,16 @@
+package com.collab.version_service.dto;
+
+import java.util.List;
+
+/**
+ * Changes from one version to another, as returned by the diff endpoint.
+ * Insertions and deletions are counted in lines or words.
+ */
+public record VersionDiff(
+        Long fromVersionId,
+        Long toVersionId,
+        String granularity,
+        int insertions,
+        int deletions,
+        List<DiffEdit> edits) {
+}
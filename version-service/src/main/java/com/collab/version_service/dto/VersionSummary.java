@@ -0,0 +1,18 @@
+package com.collab.version_service.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Version metadata for history listings, without the content.
+ */
+public record VersionSummary(
+        Long id,
+        Long documentId,
+        Integer versionNumber,
+        Long editedByUserId,
+        LocalDateTime timestamp,
+        Integer contentLength,
+        String changeDescription,
+        String contentHash,
+        String label) {
+}
@@ -1,10 +1,16 @@
 package com.collab.version_service.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "document_versions")
+@Table(name = "document_versions", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_versions_document_number", columnNames = {"document_id", "version_number"})
+}, indexes = {
+    @Index(name = "idx_versions_document_timestamp", columnList = "document_id, timestamp, id"),
+    @Index(name = "idx_versions_editor", columnList = "edited_by_user_id, id")
+})
 public class DocumentVersion {
 
     @Id
@@ -14,9 +20,37 @@ public class DocumentVersion {
     @Column(name = "document_id", nullable = false)
     private Long documentId;
 
-    @Column(columnDefinition = "TEXT")
+    // Filled in when read. Keyframes keep their text in version_blobs (blobHash); older
+    // keyframes stored before that still have it inline here
+    @Column(columnDefinition = "TEXT", updatable = false)
     private String content;
 
+    // SHA-256 of the full content, see ContentHash
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @JsonIgnore
+    @Column(name = "blob_hash", length = 64)
+    private String blobHash;
+
+    // Change from the base version, see TextDelta; null for keyframes
+    @JsonIgnore
+    @Column(name = "delta", columnDefinition = "TEXT")
+    private String delta;
+
+    @JsonIgnore
+    @Column(name = "base_version_id")
+    private Long baseVersionId;
+
+    @JsonIgnore
+    @Column(name = "keyframe_id")
+    private Long keyframeId;
+
+    // Number of deltas between this version and its keyframe
+    @JsonIgnore
+    @Column(name = "chain_length")
+    private Integer chainLength;
+
     @Column(name = "edited_by_user_id")
     private Long editedByUserId;
 
@@ -26,9 +60,22 @@ public class DocumentVersion {
     @Column(name = "version_number")
     private Integer versionNumber;
 
+    // Length of the full content, so listings can show it without loading the text
+    @Column(name = "content_length")
+    private Integer contentLength;
+
     @Column(name = "change_description", length = 500)
     private String changeDescription;
 
+    // Name given to the version by a user; named versions are never compacted away
+    @Column(name = "label", length = 200)
+    private String label;
+
+    // Version whose content a revert restored; the source is never compacted away. A revert
+    // stores no text of its own (no content, delta or blob) and reads the source's instead
+    @Column(name = "source_version_id")
+    private Long sourceVersionId;
+
     // Getters & Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -48,6 +95,39 @@ public class DocumentVersion {
     public Integer getVersionNumber() { return versionNumber; }
     public void setVersionNumber(Integer versionNumber) { this.versionNumber = versionNumber; }
     
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
+    public String getBlobHash() { return blobHash; }
+    public void setBlobHash(String blobHash) { this.blobHash = blobHash; }
+
+    public String getDelta() { return delta; }
+    public void setDelta(String delta) { this.delta = delta; }
+
+    public Long getBaseVersionId() { return baseVersionId; }
+    public void setBaseVersionId(Long baseVersionId) { this.baseVersionId = baseVersionId; }
+
+    public Long getKeyframeId() { return keyframeId; }
+    public void setKeyframeId(Long keyframeId) { this.keyframeId = keyframeId; }
+
+    public Integer getChainLength() { return chainLength; }
+    public void setChainLength(Integer chainLength) { this.chainLength = chainLength; }
+
+    @JsonIgnore
+    public boolean isKeyframe() { return delta == null; }
+
+    @JsonIgnore
+    public boolean isPointer() { return sourceVersionId != null && delta == null && blobHash == null; }
+
+    public Integer getContentLength() { return contentLength; }
+    public void setContentLength(Integer contentLength) { this.contentLength = contentLength; }
+
     public String getChangeDescription() { return changeDescription; }
     public void setChangeDescription(String changeDescription) { this.changeDescription = changeDescription; }
+
+    public String getLabel() { return label; }
+    public void setLabel(String label) { this.label = label; }
+
+    public Long getSourceVersionId() { return sourceVersionId; }
+    public void setSourceVersionId(Long sourceVersionId) { this.sourceVersionId = sourceVersionId; }
 }
@@ -0,0 +1,31 @@
+package com.collab.version_service.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Last version number handed out for a document. The row is locked while a
+ * version is saved, which serializes numbering per document.
+ */
+@Entity
+@Table(name = "document_version_counters")
+public class DocumentVersionCounter {
+
+    @Id
+    @Column(name = "document_id")
+    private Long documentId;
+
+    @Column(name = "last_version_number", nullable = false)
+    private Integer lastVersionNumber;
+
+    public DocumentVersionCounter() {}
+    public DocumentVersionCounter(Long documentId, Integer lastVersionNumber) {
+        this.documentId = documentId;
+        this.lastVersionNumber = lastVersionNumber;
+    }
+
+    public Long getDocumentId() { return documentId; }
+    public void setDocumentId(Long documentId) { this.documentId = documentId; }
+
+    public Integer getLastVersionNumber() { return lastVersionNumber; }
+    public void setLastVersionNumber(Integer lastVersionNumber) { this.lastVersionNumber = lastVersionNumber; }
+}
@@ -0,0 +1,57 @@
+package com.collab.version_service.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Running count of versions a user has created for a document, updated on
+ * every saved version so contribution queries never scan document_versions.
+ */
+@Entity
+@Table(name = "user_contributions", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"user_id", "document_id"})
+}, indexes = {
+    @Index(name = "idx_contributions_document", columnList = "document_id")
+})
+public class UserContribution {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "document_id", nullable = false)
+    private Long documentId;
+
+    @Column(name = "version_count", nullable = false)
+    private Long versionCount = 0L;
+
+    @Column(name = "last_contribution_at")
+    private LocalDateTime lastContributionAt;
+
+    public UserContribution() {}
+    public UserContribution(Long userId, Long documentId, Long versionCount, LocalDateTime lastContributionAt) {
+        this.userId = userId;
+        this.documentId = documentId;
+        this.versionCount = versionCount;
+        this.lastContributionAt = lastContributionAt;
+    }
+
+    // Getters & Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Long getDocumentId() { return documentId; }
+    public void setDocumentId(Long documentId) { this.documentId = documentId; }
+
+    public Long getVersionCount() { return versionCount; }
+    public void setVersionCount(Long versionCount) { this.versionCount = versionCount; }
+
+    public LocalDateTime getLastContributionAt() { return lastContributionAt; }
+    public void setLastContributionAt(LocalDateTime lastContributionAt) { this.lastContributionAt = lastContributionAt; }
+}
@@ -0,0 +1,46 @@
+package com.collab.version_service.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Full text of a keyframe, stored once per distinct content and keyed by its
+ * SHA-256. Keyframes of any document that have the same text share the row.
+ */
+@Entity
+@Table(name = "version_blobs")
+public class VersionBlob {
+
+    @Id
+    @Column(name = "hash", length = 64)
+    private String hash;
+
+    @Column(columnDefinition = "TEXT", updatable = false)
+    private String content;
+
+    @Column(name = "content_length")
+    private Integer contentLength;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    public VersionBlob() {}
+    public VersionBlob(String hash, String content) {
+        this.hash = hash;
+        this.content = content;
+        this.contentLength = content.length();
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public String getHash() { return hash; }
+    public void setHash(String hash) { this.hash = hash; }
+
+    public String getContent() { return content; }
+    public void setContent(String content) { this.content = content; }
+
+    public Integer getContentLength() { return contentLength; }
+    public void setContentLength(Integer contentLength) { this.contentLength = contentLength; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,13 @@
+package com.collab.version_service.repository;
+
+import com.collab.version_service.model.DocumentVersionCounter;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+
+import java.util.Optional;
+
+public interface DocumentVersionCounterRepository extends JpaRepository<DocumentVersionCounter, Long> {
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<DocumentVersionCounter> findForUpdateByDocumentId(Long documentId);
+}
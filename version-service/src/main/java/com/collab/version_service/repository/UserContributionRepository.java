@@ -0,0 +1,17 @@
+package com.collab.version_service.repository;
+
+import com.collab.version_service.model.UserContribution;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface UserContributionRepository extends JpaRepository<UserContribution, Long> {
+    List<UserContribution> findByDocumentId(Long documentId);
+    List<UserContribution> findByUserId(Long userId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<UserContribution> findForUpdateByUserIdAndDocumentId(Long userId, Long documentId);
+}
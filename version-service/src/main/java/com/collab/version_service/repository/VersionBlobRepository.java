@@ -0,0 +1,7 @@
+package com.collab.version_service.repository;
+
+import com.collab.version_service.model.VersionBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface VersionBlobRepository extends JpaRepository<VersionBlob, String> {
+}
@@ -0,0 +1,50 @@
+package com.collab.version_service.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Streams the stored text of keyframe versions straight from the CLOB
+ * column (inline, or the shared blob), so reading a large keyframe does not
+ * build a String first.
+ */
+@Repository
+public class VersionContentStore {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public VersionContentStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Copies the content of version {@code id} to {@code out} if it is a
+     * keyframe. Returns false for delta and revert versions and unknown ids,
+     * which the caller has to resolve through VersionService.
+     */
+    @Transactional(readOnly = true)
+    public boolean streamKeyframeTo(Long id, Writer out) {
+        Boolean found = jdbcTemplate.query(
+                "select coalesce(v.content, b.content) from document_versions v "
+                        + "left join version_blobs b on b.hash = v.blob_hash "
+                        + "where v.id = ? and v.delta is null and (v.content is not null or v.blob_hash is not null)", rs -> {
+            if (!rs.next()) return false;
+            try (Reader content = rs.getCharacterStream(1)) {
+                if (content != null) {
+                    content.transferTo(out);
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return true;
+        }, id);
+        return Boolean.TRUE.equals(found);
+    }
+}
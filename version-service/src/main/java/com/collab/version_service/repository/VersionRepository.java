@@ -1,9 +1,80 @@
 package com.collab.version_service.repository;
 
+import com.collab.version_service.dto.VersionSummary;
 import com.collab.version_service.model.DocumentVersion;
+import com.collab.version_service.model.UserContribution;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface VersionRepository extends JpaRepository<DocumentVersion, Long> {
     List<DocumentVersion> findByDocumentId(Long documentId);
+    Optional<DocumentVersion> findTopByDocumentIdOrderByIdDesc(Long documentId);
+
+    @Query("select coalesce(max(v.versionNumber), 0) from DocumentVersion v where v.documentId = :documentId")
+    int findMaxVersionNumber(@Param("documentId") Long documentId);
+
+    // Used once to build user_contributions for versions stored before it existed
+    @Query("select new com.collab.version_service.model.UserContribution(v.editedByUserId, v.documentId, count(v), max(v.timestamp)) "
+            + "from DocumentVersion v where v.editedByUserId is not null group by v.editedByUserId, v.documentId")
+    List<UserContribution> aggregateContributions();
+    List<DocumentVersion> findByDocumentIdAndIdBetweenOrderByIdAsc(Long documentId, Long fromId, Long toId);
+
+    // History pages, newest first, keyed on (timestamp, id) so each page is an index range scan
+    @Query("select new com.collab.version_service.dto.VersionSummary(v.id, v.documentId, v.versionNumber, "
+            + "v.editedByUserId, v.timestamp, v.contentLength, v.changeDescription, v.contentHash, v.label) from DocumentVersion v "
+            + "where v.documentId = :documentId order by v.timestamp desc, v.id desc")
+    List<VersionSummary> findHistory(@Param("documentId") Long documentId, Pageable pageable);
+
+    @Query("select new com.collab.version_service.dto.VersionSummary(v.id, v.documentId, v.versionNumber, "
+            + "v.editedByUserId, v.timestamp, v.contentLength, v.changeDescription, v.contentHash, v.label) from DocumentVersion v "
+            + "where v.documentId = :documentId and (v.timestamp < :timestamp or (v.timestamp = :timestamp and v.id < :id)) "
+            + "order by v.timestamp desc, v.id desc")
+    List<VersionSummary> findHistoryBefore(@Param("documentId") Long documentId, @Param("timestamp") LocalDateTime timestamp,
+                                           @Param("id") Long id, Pageable pageable);
+
+    // A user's versions, newest first, keyed on id so each page is a range scan of idx_versions_editor
+    @Query("select new com.collab.version_service.dto.VersionSummary(v.id, v.documentId, v.versionNumber, "
+            + "v.editedByUserId, v.timestamp, v.contentLength, v.changeDescription, v.contentHash, v.label) from DocumentVersion v "
+            + "where v.editedByUserId = :userId order by v.id desc")
+    List<VersionSummary> findByEditor(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("select new com.collab.version_service.dto.VersionSummary(v.id, v.documentId, v.versionNumber, "
+            + "v.editedByUserId, v.timestamp, v.contentLength, v.changeDescription, v.contentHash, v.label) from DocumentVersion v "
+            + "where v.editedByUserId = :userId and v.id < :id order by v.id desc")
+    List<VersionSummary> findByEditorBefore(@Param("userId") Long userId, @Param("id") Long id, Pageable pageable);
+
+    @Query("select v from DocumentVersion v where v.documentId = :documentId order by v.timestamp desc, v.id desc")
+    List<DocumentVersion> findHistoryWithContent(@Param("documentId") Long documentId, Pageable pageable);
+
+    @Query("select v from DocumentVersion v where v.documentId = :documentId "
+            + "and (v.timestamp < :timestamp or (v.timestamp = :timestamp and v.id < :id)) "
+            + "order by v.timestamp desc, v.id desc")
+    List<DocumentVersion> findHistoryWithContentBefore(@Param("documentId") Long documentId, @Param("timestamp") LocalDateTime timestamp,
+                                                       @Param("id") Long id, Pageable pageable);
+
+    // Compaction: documents with versions old enough to thin out, in documentId order
+    @Query("select distinct v.documentId from DocumentVersion v where v.timestamp < :before and v.documentId > :after "
+            + "order by v.documentId")
+    List<Long> findDocumentsWithVersionsBefore(@Param("before") LocalDateTime before, @Param("after") Long after,
+                                               Pageable pageable);
+
+    @Query("select new com.collab.version_service.dto.VersionSummary(v.id, v.documentId, v.versionNumber, "
+            + "v.editedByUserId, v.timestamp, v.contentLength, v.changeDescription, v.contentHash, v.label) "
+            + "from DocumentVersion v where v.documentId = :documentId and v.timestamp < :before "
+            + "order by v.timestamp asc, v.id asc")
+    List<VersionSummary> findCompactionCandidates(@Param("documentId") Long documentId, @Param("before") LocalDateTime before);
+
+    @Query("select distinct v.sourceVersionId from DocumentVersion v "
+            + "where v.documentId = :documentId and v.sourceVersionId is not null")
+    List<Long> findSourceVersionIds(@Param("documentId") Long documentId);
+
+    List<DocumentVersion> findByBaseVersionId(Long baseVersionId);
+    List<DocumentVersion> findByKeyframeId(Long keyframeId);
+    boolean existsByBlobHash(String blobHash);
 }
@@ -0,0 +1,56 @@
+package com.collab.version_service.service;
+
+import com.collab.version_service.model.DocumentVersion;
+import com.collab.version_service.model.UserContribution;
+import com.collab.version_service.repository.UserContributionRepository;
+import com.collab.version_service.repository.VersionRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Maintains the per-user, per-document contribution counts in
+ * {@link UserContribution}, incrementally as versions are saved.
+ */
+@Service
+public class ContributionService {
+
+    private final UserContributionRepository contributionRepository;
+    private final VersionRepository versionRepository;
+
+    public ContributionService(UserContributionRepository contributionRepository, VersionRepository versionRepository) {
+        this.contributionRepository = contributionRepository;
+        this.versionRepository = versionRepository;
+    }
+
+    @Transactional
+    public void record(DocumentVersion version) {
+        if (version.getEditedByUserId() == null) return;
+        UserContribution contribution = contributionRepository
+                .findForUpdateByUserIdAndDocumentId(version.getEditedByUserId(), version.getDocumentId())
+                .orElseGet(() -> new UserContribution(version.getEditedByUserId(), version.getDocumentId(), 0L, null));
+        contribution.setVersionCount(contribution.getVersionCount() + 1);
+        contribution.setLastContributionAt(version.getTimestamp());
+        contributionRepository.save(contribution);
+    }
+
+    public List<UserContribution> forDocument(Long documentId) {
+        return contributionRepository.findByDocumentId(documentId);
+    }
+
+    public List<UserContribution> forUser(Long userId) {
+        return contributionRepository.findByUserId(userId);
+    }
+
+    // Versions saved before contributions were tracked are counted once at startup
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfill() {
+        if (contributionRepository.count() == 0 && versionRepository.count() > 0) {
+            contributionRepository.saveAll(versionRepository.aggregateContributions());
+        }
+    }
+}
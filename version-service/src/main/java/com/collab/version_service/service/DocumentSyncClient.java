@@ -0,0 +1,69 @@
+package com.collab.version_service.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pushes reverted content to the live document: document-service stores it
+ * and updates its editing session and subscribers, then collaboration-service
+ * hands it to the OT session of anyone editing the document. Both calls run
+ * on the revert's request thread, so the RestTemplate has timeouts (see
+ * RestTemplateConfig).
+ */
+@Component
+public class DocumentSyncClient {
+
+    // checked by collaboration-service's internal content endpoint
+    static final String INTERNAL_TOKEN_HEADER = "X-Internal-Token";
+
+    private final RestTemplate restTemplate;
+
+    @Value("${document.service.url:http://localhost:8082}")
+    private String documentServiceUrl;
+
+    @Value("${collaboration.service.url:http://localhost:8084}")
+    private String collaborationServiceUrl;
+
+    @Value("${collaboration.service.internal-token:}")
+    private String collaborationInternalToken;
+
+    public DocumentSyncClient(RestTemplate restTemplate) {
+        this.restTemplate = restTemplate;
+    }
+
+    /**
+     * Returns false if document-service could not be updated. The
+     * collaboration-service push is best effort: an OT session that misses it
+     * is out of date until its editors reload.
+     */
+    public boolean pushRevert(Long documentId, String content, Long userId) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("content", content);
+        try {
+            String url = documentServiceUrl + "/documents/" + documentId + "/revert"
+                    + (userId != null ? "?userId=" + userId : "");
+            restTemplate.put(url, body);
+        } catch (Exception e) {
+            System.err.println("Failed to push revert of document " + documentId + " to document-service: " + e.getMessage());
+            return false;
+        }
+        try {
+            body.put("userId", userId);
+            HttpHeaders headers = new HttpHeaders();
+            if (!collaborationInternalToken.isBlank()) {
+                headers.set(INTERNAL_TOKEN_HEADER, collaborationInternalToken);
+            }
+            restTemplate.put(collaborationServiceUrl + "/collab/documents/" + documentId + "/content",
+                    new HttpEntity<>(body, headers));
+        } catch (Exception e) {
+            System.err.println("Failed to push revert of document " + documentId + " to collaboration-service: " + e.getMessage());
+        }
+        return true;
+    }
+}
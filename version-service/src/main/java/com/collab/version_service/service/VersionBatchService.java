@@ -0,0 +1,48 @@
+package com.collab.version_service.service;
+
+import com.collab.version_service.dto.VersionBatchResult;
+import com.collab.version_service.model.DocumentVersion;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Saves the versions of a batch one at a time, each in its own transaction
+ * through {@link VersionService#save}, so one bad entry fails alone instead
+ * of rolling back every document's version. Entries are taken in documentId
+ * order, so concurrent batches lock the per-document counters in the same
+ * order and cannot deadlock on them.
+ */
+@Service
+public class VersionBatchService {
+
+    private final VersionService versionService;
+
+    public VersionBatchService(VersionService versionService) {
+        this.versionService = versionService;
+    }
+
+    // never joins a caller's transaction, which would tie the entries together again
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public VersionBatchResult saveAll(List<DocumentVersion> versions) {
+        List<DocumentVersion> ordered = new ArrayList<>(versions);
+        // stable, so versions of one document keep their order
+        ordered.sort(Comparator.comparing(DocumentVersion::getDocumentId, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        List<DocumentVersion> saved = new ArrayList<>(ordered.size());
+        List<VersionBatchResult.Failure> failed = new ArrayList<>();
+        for (DocumentVersion version : ordered) {
+            try {
+                saved.add(versionService.save(version));
+            } catch (RuntimeException e) {
+                System.err.println("Failed to save version of document " + version.getDocumentId() + ": " + e.getMessage());
+                failed.add(new VersionBatchResult.Failure(version.getDocumentId(), e.getMessage()));
+            }
+        }
+        return new VersionBatchResult(saved, failed);
+    }
+}
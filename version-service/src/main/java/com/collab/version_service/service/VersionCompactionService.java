@@ -0,0 +1,185 @@
+package com.collab.version_service.service;
+
+import com.collab.version_service.dto.VersionSummary;
+import com.collab.version_service.model.DocumentVersion;
+import com.collab.version_service.repository.VersionBlobRepository;
+import com.collab.version_service.repository.VersionRepository;
+import com.collab.version_service.storage.TextDelta;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Thins out old version history. Everything newer than
+ * {@code keep-all-hours} is kept; older versions are reduced to the last one
+ * of each hour up to {@code hourly-days} and the last one of each day beyond
+ * that. Named versions, versions a revert restored and the latest version of
+ * a document are always kept.
+ *
+ * <p>Each run handles a few documents, resuming where the previous run
+ * stopped, and deletes in transactions of {@code batch-size} versions that
+ * hold the document's counter lock only for that batch. A deleted version's
+ * dependent delta is re-encoded against the deleted version's base, or
+ * becomes a keyframe if the deleted version was one. Contribution counts are
+ * left alone: they count edits made, not versions kept. The versions that
+ * must be kept are checked again under the lock, since a revert or a new
+ * save may have landed after the selection, and cached diffs of deleted
+ * versions are evicted.
+ */
+@Service
+public class VersionCompactionService {
+
+    private final VersionRepository repository;
+    private final VersionBlobRepository blobRepository;
+    private final VersionService versionService;
+    private final VersionNumberService versionNumberService;
+    private final VersionDiffService diffService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${version.retention.enabled:true}")
+    private boolean enabled;
+
+    @Value("${version.retention.keep-all-hours:24}")
+    private long keepAllHours;
+
+    @Value("${version.retention.hourly-days:7}")
+    private long hourlyDays;
+
+    @Value("${version.retention.documents-per-run:50}")
+    private int documentsPerRun;
+
+    @Value("${version.retention.batch-size:100}")
+    private int batchSize;
+
+    // last document handled, so successive runs walk through all documents
+    private Long lastDocumentId = 0L;
+
+    public VersionCompactionService(VersionRepository repository, VersionBlobRepository blobRepository,
+                                    VersionService versionService, VersionNumberService versionNumberService,
+                                    VersionDiffService diffService, TransactionTemplate transactionTemplate) {
+        this.repository = repository;
+        this.blobRepository = blobRepository;
+        this.versionService = versionService;
+        this.versionNumberService = versionNumberService;
+        this.diffService = diffService;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Scheduled(fixedDelayString = "${version.retention.interval-ms:600000}",
+            initialDelayString = "${version.retention.interval-ms:600000}")
+    public void run() {
+        if (!enabled) return;
+        LocalDateTime keepAllSince = LocalDateTime.now().minusHours(keepAllHours);
+        List<Long> documentIds = repository.findDocumentsWithVersionsBefore(keepAllSince, lastDocumentId,
+                PageRequest.of(0, documentsPerRun));
+        for (Long documentId : documentIds) {
+            try {
+                compact(documentId, LocalDateTime.now());
+            } catch (Exception e) {
+                System.err.println("Version compaction failed for document " + documentId + ": " + e.getMessage());
+            }
+        }
+        // start over once the last page is done
+        lastDocumentId = documentIds.size() < documentsPerRun ? 0L : documentIds.get(documentIds.size() - 1);
+    }
+
+    /**
+     * Applies the retention policy to one document as of {@code now} and
+     * returns the number of versions deleted.
+     */
+    public int compact(Long documentId, LocalDateTime now) {
+        List<Long> doomed = selectForDeletion(documentId, now);
+        int deleted = 0;
+        for (int from = 0; from < doomed.size(); from += batchSize) {
+            List<Long> batch = doomed.subList(from, Math.min(doomed.size(), from + batchSize));
+            Integer removed = transactionTemplate.execute(status -> {
+                // keeps saves of this document from re-encoding the chain at the same time
+                versionNumberService.lock(documentId);
+                // saves committed since the selection may have made a doomed version a revert source or the latest
+                Set<Long> keep = alwaysKept(documentId);
+                int count = 0;
+                for (Long id : batch) {
+                    if (!keep.contains(id) && remove(id)) count++;
+                }
+                return count;
+            });
+            deleted += removed;
+            diffService.evict(batch);
+        }
+        return deleted;
+    }
+
+    // Ids to delete, oldest first
+    List<Long> selectForDeletion(Long documentId, LocalDateTime now) {
+        LocalDateTime keepAllSince = now.minusHours(keepAllHours);
+        LocalDateTime hourlySince = now.minusDays(hourlyDays);
+        List<VersionSummary> candidates = repository.findCompactionCandidates(documentId, keepAllSince);
+        if (candidates.isEmpty()) return List.of();
+
+        Set<Long> keep = alwaysKept(documentId);
+        // candidates are oldest first, so the last one seen per bucket is the one kept
+        Map<LocalDateTime, Long> lastInBucket = new HashMap<>();
+        for (VersionSummary candidate : candidates) {
+            if (candidate.label() != null) keep.add(candidate.id());
+            ChronoUnit unit = candidate.timestamp().isBefore(hourlySince) ? ChronoUnit.DAYS : ChronoUnit.HOURS;
+            lastInBucket.put(candidate.timestamp().truncatedTo(unit), candidate.id());
+        }
+        keep.addAll(lastInBucket.values());
+
+        List<Long> doomed = new ArrayList<>();
+        for (VersionSummary candidate : candidates) {
+            if (!keep.contains(candidate.id())) doomed.add(candidate.id());
+        }
+        doomed.sort(null);
+        return doomed;
+    }
+
+    // Versions a revert restored and the document's latest version
+    private Set<Long> alwaysKept(Long documentId) {
+        Set<Long> keep = new HashSet<>(repository.findSourceVersionIds(documentId));
+        repository.findTopByDocumentIdOrderByIdDesc(documentId).ifPresent(latest -> keep.add(latest.getId()));
+        return keep;
+    }
+
+    // Returns false if the version is gone or was named since it was selected
+    private boolean remove(Long id) {
+        DocumentVersion version = repository.findById(id).orElse(null);
+        if (version == null || version.getLabel() != null) return false;
+
+        for (DocumentVersion dependent : repository.findByBaseVersionId(id)) {
+            String content = versionService.resolveContent(dependent);
+            if (version.isKeyframe()) {
+                versionService.storeAsKeyframe(dependent, content);
+                // the rest of the chain now starts at the dependent
+                for (DocumentVersion member : repository.findByKeyframeId(id)) {
+                    if (!member.getId().equals(dependent.getId())) member.setKeyframeId(dependent.getId());
+                }
+            } else {
+                // chain lengths further down stay one too high, which only brings their next keyframe forward
+                DocumentVersion base = repository.findById(version.getBaseVersionId())
+                        .orElseThrow(() -> new IllegalStateException("Broken delta chain for version " + id));
+                dependent.setDelta(TextDelta.between(versionService.resolveContent(base), content));
+                dependent.setBaseVersionId(base.getId());
+                dependent.setKeyframeId(version.getKeyframeId());
+                dependent.setChainLength(Math.max(0, dependent.getChainLength() - 1));
+            }
+        }
+
+        repository.delete(version);
+        if (version.getBlobHash() != null && !repository.existsByBlobHash(version.getBlobHash())) {
+            blobRepository.deleteById(version.getBlobHash());
+        }
+        return true;
+    }
+}
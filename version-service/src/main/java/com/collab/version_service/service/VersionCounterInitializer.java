@@ -0,0 +1,26 @@
+package com.collab.version_service.service;
+
+import com.collab.version_service.model.DocumentVersionCounter;
+import com.collab.version_service.repository.DocumentVersionCounterRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Creates a document's counter row in its own transaction, so losing the
+ * race against a concurrent first save does not roll back the caller.
+ */
+@Component
+public class VersionCounterInitializer {
+
+    private final DocumentVersionCounterRepository counterRepository;
+
+    public VersionCounterInitializer(DocumentVersionCounterRepository counterRepository) {
+        this.counterRepository = counterRepository;
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void create(Long documentId, int lastVersionNumber) {
+        counterRepository.saveAndFlush(new DocumentVersionCounter(documentId, lastVersionNumber));
+    }
+}
@@ -0,0 +1,84 @@
+package com.collab.version_service.service;
+
+import com.collab.version_service.diff.TextDiff;
+import com.collab.version_service.dto.DiffEdit;
+import com.collab.version_service.dto.VersionDiff;
+import com.collab.version_service.model.DocumentVersion;
+import com.collab.version_service.repository.VersionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Computes diffs between two versions and keeps the most recently requested
+ * ones. The content of a version never changes, so a cached diff is only
+ * dropped when it falls out of the LRU or compaction deletes one of its
+ * versions. A cached diff is still only served while both versions exist.
+ */
+@Service
+public class VersionDiffService {
+
+    private final VersionRepository repository;
+    private final VersionService versionService;
+    private final Map<Key, VersionDiff> cache;
+
+    private record Key(Long fromId, Long toId, TextDiff.Granularity granularity, int context) {}
+
+    public VersionDiffService(VersionRepository repository, VersionService versionService,
+                              @Value("${version.diff.cache-size:256}") int cacheSize) {
+        this.repository = repository;
+        this.versionService = versionService;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, VersionDiff> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Diff from version {@code fromId} to {@code toId}, or empty if either
+     * does not exist or they belong to different documents.
+     */
+    public Optional<VersionDiff> diff(Long fromId, Long toId, TextDiff.Granularity granularity, int context) {
+        Key key = new Key(fromId, toId, granularity, context);
+        VersionDiff cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+        }
+        // a diff computed while compaction deleted one of the versions can be cached after its eviction
+        if (cached != null && repository.existsById(fromId) && repository.existsById(toId)) {
+            return Optional.of(cached);
+        }
+
+        Optional<DocumentVersion> from = repository.findById(fromId);
+        Optional<DocumentVersion> to = repository.findById(toId);
+        if (from.isEmpty() || to.isEmpty() || !from.get().getDocumentId().equals(to.get().getDocumentId())) {
+            return Optional.empty();
+        }
+        List<DiffEdit> edits = TextDiff.diff(versionService.resolveContent(from.get()),
+                versionService.resolveContent(to.get()), granularity, context);
+        int insertions = 0, deletions = 0;
+        for (DiffEdit edit : edits) {
+            if (edit.op().equals("insert")) insertions += edit.count();
+            else if (edit.op().equals("delete")) deletions += edit.count();
+        }
+        VersionDiff diff = new VersionDiff(fromId, toId, granularity.name().toLowerCase(), insertions, deletions, edits);
+        synchronized (cache) {
+            cache.put(key, diff);
+        }
+        return Optional.of(diff);
+    }
+
+    // Drops cached diffs from or to any of these versions
+    public void evict(Collection<Long> versionIds) {
+        synchronized (cache) {
+            cache.keySet().removeIf(key -> versionIds.contains(key.fromId()) || versionIds.contains(key.toId()));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.collab.version_service.service;
+
+import com.collab.version_service.model.DocumentVersionCounter;
+import com.collab.version_service.repository.DocumentVersionCounterRepository;
+import com.collab.version_service.repository.VersionRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Hands out per-document version numbers from a locked counter row, so
+ * concurrent saves never get the same number and numbering costs O(1)
+ * regardless of history length.
+ */
+@Service
+public class VersionNumberService {
+
+    private final DocumentVersionCounterRepository counterRepository;
+    private final VersionRepository versionRepository;
+    private final VersionCounterInitializer counterInitializer;
+
+    public VersionNumberService(DocumentVersionCounterRepository counterRepository, VersionRepository versionRepository,
+                                VersionCounterInitializer counterInitializer) {
+        this.counterRepository = counterRepository;
+        this.versionRepository = versionRepository;
+        this.counterInitializer = counterInitializer;
+    }
+
+    /**
+     * Returns the next version number and keeps the document's counter locked
+     * until the caller's transaction ends.
+     */
+    @Transactional
+    public int next(Long documentId) {
+        return next(lock(documentId));
+    }
+
+    public int next(DocumentVersionCounter counter) {
+        counter.setLastVersionNumber(counter.getLastVersionNumber() + 1);
+        return counter.getLastVersionNumber();
+    }
+
+    /**
+     * Locks the document's counter until the caller's transaction ends without
+     * taking a number, for saves that may turn out not to need one.
+     */
+    @Transactional
+    public DocumentVersionCounter lock(Long documentId) {
+        return counterRepository.findForUpdateByDocumentId(documentId)
+                .orElseGet(() -> {
+                    try {
+                        // start after any numbers stored before counters existed
+                        counterInitializer.create(documentId, versionRepository.findMaxVersionNumber(documentId));
+                    } catch (DataIntegrityViolationException e) {
+                        // another save created it first; the locking read below waits for it
+                    }
+                    return counterRepository.findForUpdateByDocumentId(documentId)
+                            .orElseThrow(() -> new IllegalStateException("No version counter for document " + documentId));
+                });
+    }
+}
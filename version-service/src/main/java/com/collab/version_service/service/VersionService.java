@@ -0,0 +1,240 @@
+package com.collab.version_service.service;
+
+import com.collab.version_service.model.DocumentVersion;
+import com.collab.version_service.model.DocumentVersionCounter;
+import com.collab.version_service.model.VersionBlob;
+import com.collab.version_service.repository.VersionBlobRepository;
+import com.collab.version_service.repository.VersionRepository;
+import com.collab.version_service.storage.ContentHash;
+import com.collab.version_service.storage.TextDelta;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores versions as periodic full keyframes with compact deltas in between.
+ * Every {@code version.storage.keyframe-interval} versions of a document (or
+ * whenever a delta would not be smaller than the text) the full content is
+ * stored; any other version only stores the change from the previous one and
+ * is rebuilt by replaying deltas from its keyframe. Keyframe text lives in
+ * version_blobs keyed by its hash, so identical keyframes are stored once, and
+ * a save whose content hash equals the latest version's creates nothing.
+ */
+@Service
+public class VersionService {
+
+    private final VersionRepository repository;
+    private final ContributionService contributionService;
+    private final VersionNumberService versionNumberService;
+    private final VersionBlobRepository blobRepository;
+
+    @Value("${version.storage.keyframe-interval:50}")
+    private int keyframeInterval;
+
+    public VersionService(VersionRepository repository, ContributionService contributionService,
+                          VersionNumberService versionNumberService, VersionBlobRepository blobRepository) {
+        this.repository = repository;
+        this.contributionService = contributionService;
+        this.versionNumberService = versionNumberService;
+        this.blobRepository = blobRepository;
+    }
+
+    /**
+     * Stores a new version, or returns the latest one unchanged if it already
+     * has exactly this content.
+     */
+    @Transactional
+    public DocumentVersion save(DocumentVersion version) {
+        // the counter lock serializes saves of the document, so the previous version below cannot change under us
+        DocumentVersionCounter counter = versionNumberService.lock(version.getDocumentId());
+        String content = version.getContent() != null ? version.getContent() : "";
+        String hash = ContentHash.of(content);
+        DocumentVersion previous = repository.findTopByDocumentIdOrderByIdDesc(version.getDocumentId()).orElse(null);
+        String previousContent = null;
+        if (previous != null) {
+            String previousHash = previous.getContentHash();
+            if (previousHash == null) {
+                // stored before content hashes; its text is needed for the delta below anyway
+                previousContent = resolveContent(previous);
+                previousHash = ContentHash.of(previousContent);
+            }
+            if (previousHash.equals(hash)) {
+                return withContent(previous);
+            }
+        }
+
+        version.setVersionNumber(versionNumberService.next(counter));
+        version.setContentLength(content.length());
+        version.setContentHash(hash);
+
+        int chainLength = previous != null && previous.getChainLength() != null ? previous.getChainLength() + 1 : 0;
+        String delta = null;
+        boolean blobStored = blobRepository.existsById(hash);
+        // text that is already stored as a blob makes a keyframe for free
+        if (previous != null && chainLength < keyframeInterval && !blobStored) {
+            delta = TextDelta.between(previousContent != null ? previousContent : resolveContent(previous), content);
+            if (delta.length() >= content.length()) {
+                delta = null;
+            }
+        }
+
+        if (delta == null) {
+            storeAsKeyframe(version, content, hash, blobStored);
+        } else {
+            version.setChainLength(chainLength);
+            version.setDelta(delta);
+            version.setBaseVersionId(previous.getId());
+            version.setKeyframeId(previous.isKeyframe() ? previous.getId() : previous.getKeyframeId());
+        }
+        version.setContent(null);
+        DocumentVersion saved = repository.save(version);
+        contributionService.record(saved);
+        // content is not updatable, so this only fills in the response
+        saved.setContent(content);
+        return saved;
+    }
+
+    /**
+     * Records a revert of {@code target}'s document to {@code target}'s
+     * content as a version that only points at the version holding that
+     * content, so nothing is copied. Returns the new version with its
+     * content filled in, or the latest version if it already has that content.
+     */
+    @Transactional
+    public DocumentVersion revert(DocumentVersion target, Long editedByUserId) {
+        DocumentVersion source = target;
+        // point at the version that has the text, not at another revert
+        while (source.isPointer()) {
+            Long sourceId = source.getSourceVersionId();
+            source = repository.findById(sourceId)
+                    .orElseThrow(() -> new IllegalStateException("Missing source version " + sourceId));
+        }
+        DocumentVersionCounter counter = versionNumberService.lock(target.getDocumentId());
+        String content = resolveContent(source);
+        String hash = source.getContentHash() != null ? source.getContentHash() : ContentHash.of(content);
+        DocumentVersion latest = repository.findTopByDocumentIdOrderByIdDesc(target.getDocumentId()).orElse(null);
+        if (latest != null && hash.equals(latest.getContentHash())) {
+            return withContent(latest);
+        }
+
+        DocumentVersion pointer = new DocumentVersion();
+        pointer.setDocumentId(target.getDocumentId());
+        pointer.setEditedByUserId(editedByUserId);
+        pointer.setTimestamp(LocalDateTime.now());
+        pointer.setVersionNumber(versionNumberService.next(counter));
+        pointer.setSourceVersionId(source.getId());
+        pointer.setContentHash(hash);
+        pointer.setContentLength(content.length());
+        pointer.setChainLength(0);
+        pointer.setChangeDescription("Reverted to version " + target.getVersionNumber());
+        DocumentVersion saved = repository.save(pointer);
+        contributionService.record(saved);
+        saved.setContent(content);
+        return saved;
+    }
+
+    /**
+     * Turns {@code version} into a keyframe of {@code content}, adding the
+     * blob if it is not stored yet. The caller saves the version.
+     */
+    public void storeAsKeyframe(DocumentVersion version, String content) {
+        String hash = ContentHash.of(content);
+        storeAsKeyframe(version, content, hash, blobRepository.existsById(hash));
+    }
+
+    private void storeAsKeyframe(DocumentVersion version, String content, String hash, boolean blobStored) {
+        if (!blobStored) {
+            blobRepository.save(new VersionBlob(hash, content));
+        }
+        version.setBlobHash(hash);
+        version.setChainLength(0);
+        version.setDelta(null);
+        version.setBaseVersionId(null);
+        version.setKeyframeId(null);
+    }
+
+    /**
+     * Returns the full text of a version, replaying deltas from its keyframe if needed.
+     */
+    @Transactional(readOnly = true)
+    public String resolveContent(DocumentVersion version) {
+        if (version.isKeyframe() || version.getContent() != null) {
+            return keyframeContent(version);
+        }
+        Map<Long, DocumentVersion> chain = new HashMap<>();
+        for (DocumentVersion v : repository.findByDocumentIdAndIdBetweenOrderByIdAsc(
+                version.getDocumentId(), version.getKeyframeId(), version.getId())) {
+            chain.put(v.getId(), v);
+        }
+        chain.put(version.getId(), version);
+
+        // walk back to the keyframe, then apply deltas forward
+        List<DocumentVersion> path = new ArrayList<>();
+        DocumentVersion current = version;
+        while (!current.isKeyframe() && current.getContent() == null) {
+            path.add(current);
+            current = chain.get(current.getBaseVersionId());
+            if (current == null) {
+                throw new IllegalStateException("Broken delta chain for version " + version.getId());
+            }
+        }
+        String content = keyframeContent(current);
+        for (int i = path.size() - 1; i >= 0; i--) {
+            content = TextDelta.apply(content, path.get(i).getDelta());
+        }
+        return content;
+    }
+
+    /**
+     * Fills in the content of every version in the list, sharing the replay
+     * work between versions of the same chain.
+     */
+    @Transactional(readOnly = true)
+    public List<DocumentVersion> withContent(List<DocumentVersion> versions) {
+        Map<Long, String> resolved = new HashMap<>();
+        List<DocumentVersion> byId = new ArrayList<>(versions);
+        byId.sort(Comparator.comparing(DocumentVersion::getId, Comparator.nullsFirst(Comparator.naturalOrder())));
+        for (DocumentVersion version : byId) {
+            String content;
+            if (version.isKeyframe() || version.getContent() != null) {
+                content = keyframeContent(version);
+            } else if (resolved.containsKey(version.getBaseVersionId())) {
+                content = TextDelta.apply(resolved.get(version.getBaseVersionId()), version.getDelta());
+            } else {
+                content = resolveContent(version);
+            }
+            version.setContent(content);
+            resolved.put(version.getId(), content);
+        }
+        return versions;
+    }
+
+    public DocumentVersion withContent(DocumentVersion version) {
+        version.setContent(resolveContent(version));
+        return version;
+    }
+
+    private String keyframeContent(DocumentVersion version) {
+        if (version.getContent() != null) {
+            return version.getContent();
+        }
+        if (version.isPointer()) {
+            return repository.findById(version.getSourceVersionId())
+                    .map(this::resolveContent)
+                    .orElseThrow(() -> new IllegalStateException("Missing source of version " + version.getId()));
+        }
+        if (version.getBlobHash() == null) {
+            return null;
+        }
+        return blobRepository.findById(version.getBlobHash())
+                .map(VersionBlob::getContent)
+                .orElseThrow(() -> new IllegalStateException("Missing content blob for version " + version.getId()));
+    }
+}
@@ -0,0 +1,74 @@
+package com.collab.version_service.storage;
+
+/**
+ * Compact edit script turning one version's text into the next. Encoded as a
+ * sequence of {@code =N} (copy N characters of the base), {@code -N} (skip N
+ * characters of the base) and {@code +N:text} (insert the N characters that
+ * follow); whatever is left of the base after the last token is copied.
+ * For example {@code =120-3+5:hello} keeps 120 characters, replaces the next
+ * 3 with "hello" and keeps the rest.
+ */
+public final class TextDelta {
+
+    private TextDelta() {}
+
+    /**
+     * Encodes the change from {@code base} to {@code target} by trimming their
+     * common prefix and suffix, which is linear and covers the usual case of
+     * one edited region between two consecutive versions.
+     */
+    public static String between(String base, String target) {
+        int max = Math.min(base.length(), target.length());
+        int prefix = 0;
+        while (prefix < max && base.charAt(prefix) == target.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix
+                && base.charAt(base.length() - 1 - suffix) == target.charAt(target.length() - 1 - suffix)) {
+            suffix++;
+        }
+        int deleted = base.length() - prefix - suffix;
+        String inserted = target.substring(prefix, target.length() - suffix);
+
+        StringBuilder delta = new StringBuilder(inserted.length() + 24);
+        if (prefix > 0) delta.append('=').append(prefix);
+        if (deleted > 0) delta.append('-').append(deleted);
+        if (!inserted.isEmpty()) delta.append('+').append(inserted.length()).append(':').append(inserted);
+        return delta.toString();
+    }
+
+    public static String apply(String base, String delta) {
+        StringBuilder out = new StringBuilder(base.length() + delta.length());
+        int index = 0;
+        int pos = 0;
+        while (pos < delta.length()) {
+            char op = delta.charAt(pos++);
+            int start = pos;
+            while (pos < delta.length() && Character.isDigit(delta.charAt(pos))) pos++;
+            if (start == pos) throw new IllegalArgumentException("Malformed delta at " + start);
+            int n = Integer.parseInt(delta, start, pos, 10);
+            switch (op) {
+                case '=' -> {
+                    out.append(base, index, index + n);
+                    index += n;
+                }
+                case '-' -> index += n;
+                case '+' -> {
+                    if (pos >= delta.length() || delta.charAt(pos) != ':') {
+                        throw new IllegalArgumentException("Malformed insert at " + start);
+                    }
+                    pos++;
+                    out.append(delta, pos, pos + n);
+                    pos += n;
+                }
+                default -> throw new IllegalArgumentException("Unknown delta op '" + op + "'");
+            }
+        }
+        if (index > base.length()) {
+            throw new IllegalArgumentException("Delta does not fit a base of length " + base.length());
+        }
+        out.append(base, index, base.length());
+        return out.toString();
+    }
+}
@@ -1,12 +1,29 @@
 package com.collab.version_service.controller;
 
+import com.collab.version_service.dto.VersionSummary;
 import com.collab.version_service.model.DocumentVersion;
+import com.collab.version_service.repository.VersionBlobRepository;
+import com.collab.version_service.repository.VersionContentStore;
 import com.collab.version_service.repository.VersionRepository;
+import com.collab.version_service.model.UserContribution;
+import com.collab.version_service.repository.UserContributionRepository;
+import com.collab.version_service.model.DocumentVersionCounter;
+import com.collab.version_service.repository.DocumentVersionCounterRepository;
+import com.collab.version_service.service.ContributionService;
+import com.collab.version_service.service.DocumentSyncClient;
+import com.collab.version_service.service.VersionBatchService;
+import com.collab.version_service.service.VersionDiffService;
+import com.collab.version_service.service.VersionCounterInitializer;
+import com.collab.version_service.service.VersionNumberService;
+import com.collab.version_service.service.VersionService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
@@ -17,11 +34,14 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(VersionController.class)
+@Import({VersionService.class, VersionBatchService.class, ContributionService.class, VersionNumberService.class,
+        VersionCounterInitializer.class, VersionDiffService.class})
 class VersionControllerTest {
 
     @Autowired
@@ -30,6 +50,21 @@ class VersionControllerTest {
     @MockitoBean
     private VersionRepository versionRepository;
 
+    @MockitoBean
+    private UserContributionRepository contributionRepository;
+
+    @MockitoBean
+    private DocumentVersionCounterRepository counterRepository;
+
+    @MockitoBean
+    private VersionContentStore contentStore;
+
+    @MockitoBean
+    private VersionBlobRepository blobRepository;
+
+    @MockitoBean
+    private DocumentSyncClient documentSync;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -44,6 +79,9 @@ class VersionControllerTest {
         testVersion.setEditedByUserId(1L);
         testVersion.setTimestamp(LocalDateTime.now());
         testVersion.setVersionNumber(1);
+
+        when(counterRepository.findForUpdateByDocumentId(1L))
+                .thenReturn(Optional.of(new DocumentVersionCounter(1L, 0)));
     }
 
     @Test
@@ -60,10 +98,34 @@ class VersionControllerTest {
         verify(versionRepository, times(1)).save(any(DocumentVersion.class));
     }
 
+    @Test
+    void testSaveVersionsBatch() throws Exception {
+        when(versionRepository.save(any(DocumentVersion.class))).thenReturn(testVersion);
+
+        mockMvc.perform(post("/versions/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Arrays.asList(testVersion))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.count").value(1))
+                .andExpect(jsonPath("$.versions[0].id").value(1L))
+                .andExpect(jsonPath("$.failed.length()").value(0));
+
+        verify(versionRepository, times(1)).save(any(DocumentVersion.class));
+    }
+
+    @Test
+    void testCountVersions() throws Exception {
+        when(versionRepository.count()).thenReturn(345L);
+
+        mockMvc.perform(get("/versions/count"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(345));
+    }
+
     @Test
     void testGetVersions() throws Exception {
         List<DocumentVersion> versions = Arrays.asList(testVersion);
-        when(versionRepository.findByDocumentId(1L)).thenReturn(versions);
+        when(versionRepository.findHistoryWithContent(1L, PageRequest.of(0, 200))).thenReturn(versions);
 
         mockMvc.perform(get("/versions/document/1"))
                 .andExpect(status().isOk())
@@ -82,12 +144,61 @@ class VersionControllerTest {
 
     @Test
     void testGetVersionHistory() throws Exception {
-        List<DocumentVersion> versions = Arrays.asList(testVersion);
-        when(versionRepository.findByDocumentId(1L)).thenReturn(versions);
+        VersionSummary summary = new VersionSummary(1L, 1L, 1, 1L, testVersion.getTimestamp(), 17, null, null, null);
+        when(versionRepository.findHistory(eq(1L), any(Pageable.class))).thenReturn(Arrays.asList(summary));
 
         mockMvc.perform(get("/versions/document/1/history"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].documentId").value(1L));
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$[0].documentId").value(1L))
+                .andExpect(jsonPath("$[0].contentLength").value(17))
+                .andExpect(jsonPath("$[0].content").doesNotExist());
+    }
+
+    @Test
+    void testGetVersionHistory_NextPageWithContent() throws Exception {
+        LocalDateTime timestamp = LocalDateTime.of(2024, 1, 1, 12, 0);
+        testVersion.setTimestamp(timestamp);
+        when(versionRepository.findHistoryWithContentBefore(eq(1L), eq(timestamp), eq(5L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(testVersion));
+
+        mockMvc.perform(get("/versions/document/1/history")
+                .param("cursor", timestamp + "_5")
+                .param("limit", "1")
+                .param("includeContent", "true"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", timestamp + "_1"))
+                .andExpect(jsonPath("$[0].content").value("Version 1 content"));
+    }
+
+    @Test
+    void testDiffVersions() throws Exception {
+        DocumentVersion older = new DocumentVersion();
+        older.setId(1L);
+        older.setDocumentId(1L);
+        older.setContent("a\nb\nc\n");
+        DocumentVersion newer = new DocumentVersion();
+        newer.setId(2L);
+        newer.setDocumentId(1L);
+        newer.setContent("a\nB\nc\n");
+        when(versionRepository.findById(1L)).thenReturn(Optional.of(older));
+        when(versionRepository.findById(2L)).thenReturn(Optional.of(newer));
+        when(versionRepository.existsById(1L)).thenReturn(true);
+        when(versionRepository.existsById(2L)).thenReturn(true);
+
+        mockMvc.perform(get("/versions/1/diff/2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.insertions").value(1))
+                .andExpect(jsonPath("$.deletions").value(1))
+                .andExpect(jsonPath("$.edits[1].op").value("delete"))
+                .andExpect(jsonPath("$.edits[1].text").value("b\n"))
+                .andExpect(jsonPath("$.edits[2].op").value("insert"));
+        mockMvc.perform(get("/versions/1/diff/2"));
+        // second request is served from the pair cache
+        verify(versionRepository, times(1)).findById(2L);
+
+        mockMvc.perform(get("/versions/1/diff/2").param("granularity", "char"))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -95,32 +206,78 @@ class VersionControllerTest {
         when(versionRepository.findById(1L)).thenReturn(Optional.of(testVersion));
         when(versionRepository.findByDocumentId(1L)).thenReturn(Arrays.asList(testVersion));
         when(versionRepository.save(any(DocumentVersion.class))).thenReturn(testVersion);
+        when(documentSync.pushRevert(eq(1L), any(), any())).thenReturn(true);
 
         mockMvc.perform(post("/versions/revert/1/1"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.message").exists())
                 .andExpect(jsonPath("$.newVersion").exists());
+        verify(versionRepository).save(argThat((DocumentVersion v) -> v.getSourceVersionId() == 1L && v.getContent() == null));
+        verify(documentSync).pushRevert(eq(1L), eq(testVersion.getContent()), any());
+    }
+
+    @Test
+    void testRevertVersion_EditorFromGatewayHeader() throws Exception {
+        when(versionRepository.findById(1L)).thenReturn(Optional.of(testVersion));
+        when(versionRepository.save(any(DocumentVersion.class))).thenReturn(testVersion);
+        when(documentSync.pushRevert(eq(1L), any(), any())).thenReturn(true);
+
+        // the header set by the gateway wins over the userId parameter
+        mockMvc.perform(post("/versions/revert/1/1").param("userId", "1").header("X-User-Id", "9"))
+                .andExpect(status().isOk());
+        verify(documentSync).pushRevert(eq(1L), any(), eq(9L));
+    }
+
+    @Test
+    void testRevertVersion_DocumentServiceDown() throws Exception {
+        when(versionRepository.findById(1L)).thenReturn(Optional.of(testVersion));
+        when(versionRepository.save(any(DocumentVersion.class))).thenReturn(testVersion);
+        when(documentSync.pushRevert(eq(1L), any(), any())).thenReturn(false);
+
+        mockMvc.perform(post("/versions/revert/1/1"))
+                .andExpect(status().isBadGateway())
+                .andExpect(jsonPath("$.newVersion").exists());
     }
 
     @Test
     void testTrackContributions() throws Exception {
-        List<DocumentVersion> versions = Arrays.asList(testVersion);
-        when(versionRepository.findByDocumentId(1L)).thenReturn(versions);
+        when(contributionRepository.findByDocumentId(1L))
+                .thenReturn(Arrays.asList(new UserContribution(1L, 1L, 1L, testVersion.getTimestamp())));
 
         mockMvc.perform(get("/versions/document/1/contributions"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.documentId").value(1L))
-                .andExpect(jsonPath("$.totalVersions").value(1));
+                .andExpect(jsonPath("$.totalVersions").value(1))
+                .andExpect(jsonPath("$.userContributions.1").value(1));
+
+        verify(versionRepository, never()).findByDocumentId(any());
     }
 
     @Test
     void testGetUserContributions() throws Exception {
-        List<DocumentVersion> allVersions = Arrays.asList(testVersion);
-        when(versionRepository.findAll()).thenReturn(allVersions);
+        VersionSummary summary = new VersionSummary(3L, 1L, 3, 1L, LocalDateTime.now(), 12, "Edit", "hash", null);
+        when(versionRepository.findByEditorBefore(eq(1L), eq(10L), any(Pageable.class))).thenReturn(List.of(summary));
 
-        mockMvc.perform(get("/versions/user/1/contributions"))
+        mockMvc.perform(get("/versions/user/1/contributions").param("cursor", "10").param("limit", "1"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].editedByUserId").value(1L));
+                .andExpect(header().string("X-Next-Cursor", "3"))
+                .andExpect(jsonPath("$[0].editedByUserId").value(1L))
+                .andExpect(jsonPath("$[0].content").doesNotExist());
+
+        verify(versionRepository, never()).findAll();
+        verify(versionRepository, never()).findById(any());
+    }
+
+    @Test
+    void testSaveVersion_RecordsContribution() throws Exception {
+        when(versionRepository.save(any(DocumentVersion.class))).thenReturn(testVersion);
+
+        mockMvc.perform(post("/versions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(testVersion)))
+                .andExpect(status().isCreated());
+
+        verify(contributionRepository, times(1)).save(any(UserContribution.class));
     }
 }
 
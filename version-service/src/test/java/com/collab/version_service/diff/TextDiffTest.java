@@ -0,0 +1,73 @@
+package com.collab.version_service.diff;
+
+import com.collab.version_service.dto.DiffEdit;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextDiffTest {
+
+    @Test
+    void testLineDiffWithContext() {
+        String from = "1\n2\n3\n4\n5\n6\n7\n8\n9\n";
+        String to = "1\n2\n3\n4\nfive\n6\n7\n8\n9\n";
+
+        List<DiffEdit> edits = TextDiff.diff(from, to, TextDiff.Granularity.LINE, 1);
+
+        assertEquals(List.of(
+                new DiffEdit("skip", 3, null),
+                new DiffEdit("equal", 1, "4\n"),
+                new DiffEdit("delete", 1, "5\n"),
+                new DiffEdit("insert", 1, "five\n"),
+                new DiffEdit("equal", 1, "6\n"),
+                new DiffEdit("skip", 3, null)), edits);
+    }
+
+    @Test
+    void testWordDiff() {
+        List<DiffEdit> edits = TextDiff.diff("the quick fox", "the slow brown fox", TextDiff.Granularity.WORD, -1);
+
+        assertEquals("the quick fox", rebuild(edits, "insert"));
+        assertEquals("the slow brown fox", rebuild(edits, "delete"));
+        assertTrue(edits.contains(new DiffEdit("delete", 1, "quick")));
+    }
+
+    @Test
+    void testRandomEditsRoundTrip() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            String from = randomLines(random);
+            String to = randomLines(random);
+            List<DiffEdit> edits = TextDiff.diff(from, to, TextDiff.Granularity.LINE, -1);
+            assertEquals(from, rebuild(edits, "insert"));
+            assertEquals(to, rebuild(edits, "delete"));
+        }
+    }
+
+    @Test
+    void testMinimalEditScript() {
+        List<DiffEdit> edits = TextDiff.diff("a\nb\nc\na\nb\nb\na\n", "c\nb\na\nb\na\nc\n", TextDiff.Granularity.LINE, -1);
+        // the classic Myers example needs 5 edits
+        int changed = edits.stream().filter(e -> !e.op().equals("equal")).mapToInt(DiffEdit::count).sum();
+        assertEquals(5, changed);
+    }
+
+    // Text of one side: every run except those of the other side's op
+    private static String rebuild(List<DiffEdit> edits, String skipOp) {
+        StringBuilder text = new StringBuilder();
+        for (DiffEdit edit : edits) {
+            if (!edit.op().equals(skipOp)) text.append(edit.text());
+        }
+        return text.toString();
+    }
+
+    private static String randomLines(Random random) {
+        StringBuilder text = new StringBuilder();
+        int lines = random.nextInt(30);
+        for (int i = 0; i < lines; i++) text.append((char) ('a' + random.nextInt(4))).append('\n');
+        return text.toString();
+    }
+}
@@ -0,0 +1,53 @@
+package com.collab.version_service.integration;
+
+import com.collab.version_service.dto.VersionBatchResult;
+import com.collab.version_service.model.DocumentVersion;
+import com.collab.version_service.repository.VersionRepository;
+import com.collab.version_service.service.ContributionService;
+import com.collab.version_service.service.VersionBatchService;
+import com.collab.version_service.service.VersionCounterInitializer;
+import com.collab.version_service.service.VersionNumberService;
+import com.collab.version_service.service.VersionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The batch commits outside the test's transaction, so it gets a database of its own
+@DataJpaTest
+@Import({VersionService.class, VersionBatchService.class, ContributionService.class, VersionNumberService.class,
+        VersionCounterInitializer.class})
+class VersionBatchIntegrationTest {
+
+    @Autowired
+    private VersionRepository versionRepository;
+
+    @Autowired
+    private VersionBatchService batchService;
+
+    private DocumentVersion version(Long documentId, String content) {
+        DocumentVersion version = new DocumentVersion();
+        version.setDocumentId(documentId);
+        version.setContent(content);
+        version.setEditedByUserId(1L);
+        version.setTimestamp(LocalDateTime.now());
+        return version;
+    }
+
+    @Test
+    void testBatchEntryFailsAlone() {
+        VersionBatchResult result = batchService.saveAll(List.of(
+                version(2L, "second document"), version(null, "no document"), version(1L, "first document")));
+
+        // taken in documentId order
+        assertThat(result.saved()).extracting(DocumentVersion::getDocumentId).containsExactly(1L, 2L);
+        assertThat(result.failed()).singleElement().satisfies(failure -> assertThat(failure.documentId()).isNull());
+        assertThat(versionRepository.findByDocumentId(1L)).hasSize(1);
+        assertThat(versionRepository.findByDocumentId(2L)).hasSize(1);
+    }
+}
@@ -0,0 +1,139 @@
+package com.collab.version_service.integration;
+
+import com.collab.version_service.diff.TextDiff;
+import com.collab.version_service.model.DocumentVersion;
+import com.collab.version_service.repository.VersionBlobRepository;
+import com.collab.version_service.repository.VersionRepository;
+import com.collab.version_service.service.ContributionService;
+import com.collab.version_service.service.VersionCompactionService;
+import com.collab.version_service.service.VersionCounterInitializer;
+import com.collab.version_service.service.VersionDiffService;
+import com.collab.version_service.service.VersionNumberService;
+import com.collab.version_service.service.VersionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ImportAutoConfiguration(TransactionAutoConfiguration.class)
+@Import({VersionService.class, ContributionService.class, VersionNumberService.class, VersionCounterInitializer.class,
+        VersionCompactionService.class, VersionDiffService.class})
+@TestPropertySource(properties = {
+        "version.storage.keyframe-interval=4",
+        "version.retention.keep-all-hours=1",
+        "version.retention.hourly-days=2",
+        "version.retention.batch-size=3"
+})
+class VersionCompactionIntegrationTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 10, 12, 0);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private VersionRepository versionRepository;
+
+    @Autowired
+    private VersionBlobRepository blobRepository;
+
+    @Autowired
+    private VersionService versionService;
+
+    @Autowired
+    private VersionCompactionService compactionService;
+
+    @Autowired
+    private VersionDiffService diffService;
+
+    // Saves a version of document 1 and backdates it
+    private Long save(String content, LocalDateTime timestamp) {
+        DocumentVersion version = new DocumentVersion();
+        version.setDocumentId(1L);
+        version.setContent(content);
+        version.setEditedByUserId(1L);
+        version.setTimestamp(timestamp);
+        return versionService.save(version).getId();
+    }
+
+    @Test
+    void testThinsHistoryAndKeepsChainsReadable() {
+        String base = "Retention keeps history readable. ".repeat(10);
+        List<Long> ids = new ArrayList<>();
+        List<String> contents = new ArrayList<>();
+        // day 5 ago: 4 versions in one day, the first named
+        for (int i = 0; i < 4; i++) {
+            contents.add(base + "daily " + i);
+            ids.add(save(contents.get(i), NOW.minusDays(5).plusMinutes(i * 10)));
+        }
+        // day 1 ago: 3 versions in one hour, the first restored by a revert below
+        for (int i = 0; i < 3; i++) {
+            contents.add(base + "hourly " + i);
+            ids.add(save(contents.get(4 + i), NOW.minusDays(1).plusMinutes(i)));
+        }
+        // recent: kept as is
+        for (int i = 0; i < 3; i++) {
+            contents.add(base + "recent " + i);
+            ids.add(save(contents.get(7 + i), NOW.minusMinutes(30 - i)));
+        }
+        DocumentVersion named = versionRepository.findById(ids.get(0)).orElseThrow();
+        named.setLabel("first draft");
+        DocumentVersion revert = new DocumentVersion();
+        revert.setDocumentId(1L);
+        revert.setContent(contents.get(4));
+        revert.setSourceVersionId(ids.get(4));
+        revert.setTimestamp(NOW.minusMinutes(5));
+        Long revertId = versionService.save(revert).getId();
+        entityManager.flush();
+
+        int deleted = compactionService.compact(1L, NOW);
+        entityManager.flush();
+        entityManager.clear();
+
+        // day bucket keeps the named first and the last; hour bucket keeps the reverted-to and the last
+        assertThat(deleted).isEqualTo(3);
+        List<Long> kept = List.of(ids.get(0), ids.get(3), ids.get(4), ids.get(6), ids.get(7), ids.get(8), ids.get(9), revertId);
+        assertThat(versionRepository.findByDocumentId(1L)).extracting(DocumentVersion::getId)
+                .containsExactlyInAnyOrderElementsOf(kept);
+        for (int i = 0; i < ids.size(); i++) {
+            if (!kept.contains(ids.get(i))) continue;
+            DocumentVersion version = versionRepository.findById(ids.get(i)).orElseThrow();
+            assertThat(versionService.resolveContent(version)).isEqualTo(contents.get(i));
+        }
+        assertThat(compactionService.compact(1L, NOW)).isZero();
+    }
+
+    @Test
+    void testDeletedKeyframeHandsOverToDependent() {
+        String base = "Keyframe hand-over. ".repeat(10);
+        Long keyframe = save(base + "0", NOW.minusDays(3).plusHours(1));
+        Long delta = save(base + "1", NOW.minusDays(3).plusHours(2));
+        Long latest = save(base + "2", NOW.minusDays(3).plusHours(3));
+        entityManager.flush();
+        assertThat(diffService.diff(keyframe, delta, TextDiff.Granularity.WORD, 3)).isPresent();
+
+        assertThat(compactionService.compact(1L, NOW)).isEqualTo(2);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(versionRepository.findById(keyframe)).isEmpty();
+        assertThat(versionRepository.findById(delta)).isEmpty();
+        DocumentVersion remaining = versionRepository.findById(latest).orElseThrow();
+        assertThat(remaining.isKeyframe()).isTrue();
+        assertThat(versionService.resolveContent(remaining)).isEqualTo(base + "2");
+        assertThat(blobRepository.count()).isEqualTo(1);
+        // the cached diff went with its versions
+        assertThat(diffService.diff(keyframe, delta, TextDiff.Granularity.WORD, 3)).isEmpty();
+    }
+}
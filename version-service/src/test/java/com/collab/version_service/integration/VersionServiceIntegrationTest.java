@@ -1,5 +1,6 @@
 package com.collab.version_service.integration;
 
+import com.collab.version_service.dto.VersionSummary;
 import com.collab.version_service.model.DocumentVersion;
 import com.collab.version_service.repository.VersionRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -7,6 +8,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -73,5 +75,25 @@ class VersionServiceIntegrationTest {
         assertThat(versions).hasSize(2);
         assertThat(versions.get(0).getVersionNumber()).isIn(1, 2);
     }
-}
 
+    @Test
+    void testHistoryKeysetPagination() {
+        LocalDateTime base = LocalDateTime.now().withNano(0);
+        for (int i = 1; i <= 5; i++) {
+            DocumentVersion v = new DocumentVersion();
+            v.setDocumentId(1L);
+            v.setContent("Version " + i);
+            v.setEditedByUserId(1L);
+            v.setTimestamp(base.plusMinutes(i));
+            v.setVersionNumber(i);
+            entityManager.persistAndFlush(v);
+        }
+
+        List<VersionSummary> first = versionRepository.findHistory(1L, PageRequest.of(0, 2));
+        assertThat(first).extracting(VersionSummary::versionNumber).containsExactly(5, 4);
+
+        VersionSummary last = first.get(1);
+        List<VersionSummary> second = versionRepository.findHistoryBefore(1L, last.timestamp(), last.id(), PageRequest.of(0, 2));
+        assertThat(second).extracting(VersionSummary::versionNumber).containsExactly(3, 2);
+    }
+}
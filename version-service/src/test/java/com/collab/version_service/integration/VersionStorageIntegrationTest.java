@@ -0,0 +1,189 @@
+package com.collab.version_service.integration;
+
+import com.collab.version_service.model.DocumentVersion;
+import com.collab.version_service.model.UserContribution;
+import com.collab.version_service.repository.UserContributionRepository;
+import com.collab.version_service.repository.VersionBlobRepository;
+import com.collab.version_service.repository.VersionContentStore;
+import com.collab.version_service.repository.VersionRepository;
+import com.collab.version_service.service.ContributionService;
+import com.collab.version_service.service.VersionCounterInitializer;
+import com.collab.version_service.service.VersionNumberService;
+import com.collab.version_service.service.VersionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest
+@Import({VersionService.class, ContributionService.class, VersionNumberService.class, VersionCounterInitializer.class,
+        VersionContentStore.class})
+@TestPropertySource(properties = "version.storage.keyframe-interval=3")
+class VersionStorageIntegrationTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private VersionRepository versionRepository;
+
+    @Autowired
+    private VersionService versionService;
+
+    @Autowired
+    private VersionContentStore contentStore;
+
+    @Autowired
+    private VersionBlobRepository blobRepository;
+
+    private DocumentVersion version(String content) {
+        DocumentVersion version = new DocumentVersion();
+        version.setDocumentId(1L);
+        version.setContent(content);
+        version.setEditedByUserId(1L);
+        version.setTimestamp(LocalDateTime.now());
+        return version;
+    }
+
+    @Test
+    void testKeyframesAndDeltasRoundTrip() {
+        String base = "The quick brown fox jumps over the lazy dog. ".repeat(20);
+        List<String> contents = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            String content = base + "edit " + i;
+            contents.add(content);
+            ids.add(versionService.save(version(content)).getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        List<DocumentVersion> stored = versionRepository.findByDocumentId(1L);
+        assertThat(stored).filteredOn(DocumentVersion::isKeyframe).hasSize(3);
+        assertThat(stored).filteredOn(v -> !v.isKeyframe()).allSatisfy(v -> assertThat(v.getContent()).isNull());
+
+        for (int i = 0; i < ids.size(); i++) {
+            DocumentVersion v = versionRepository.findById(ids.get(i)).orElseThrow();
+            assertThat(versionService.resolveContent(v)).isEqualTo(contents.get(i));
+        }
+
+        entityManager.clear();
+        List<DocumentVersion> all = versionService.withContent(versionRepository.findByDocumentId(1L));
+        assertThat(all).extracting(DocumentVersion::getContent).containsExactlyInAnyOrderElementsOf(contents);
+    }
+
+    @Test
+    void testUnchangedContentDoesNotCreateVersion() {
+        DocumentVersion first = versionService.save(version("same text"));
+        DocumentVersion second = versionService.save(version("same text"));
+        DocumentVersion third = versionService.save(version("new text"));
+        entityManager.flush();
+
+        assertThat(second.getId()).isEqualTo(first.getId());
+        assertThat(second.getContent()).isEqualTo("same text");
+        assertThat(versionRepository.findByDocumentId(1L)).hasSize(2);
+        assertThat(third.getVersionNumber()).isEqualTo(first.getVersionNumber() + 1);
+    }
+
+    @Test
+    void testIdenticalKeyframesShareOneBlob() {
+        String content = "shared template ".repeat(50);
+        DocumentVersion a = versionService.save(version(content));
+        DocumentVersion other = version(content);
+        other.setDocumentId(2L);
+        DocumentVersion b = versionService.save(other);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(blobRepository.count()).isEqualTo(1);
+        assertThat(a.getContentHash()).isEqualTo(b.getContentHash());
+        DocumentVersion stored = versionRepository.findById(b.getId()).orElseThrow();
+        assertThat(stored.getContent()).isNull();
+        assertThat(versionService.resolveContent(stored)).isEqualTo(content);
+    }
+
+    @Test
+    void testRevertPointsAtSourceContent() {
+        String base = "Revert without copying. ".repeat(40);
+        DocumentVersion first = versionService.save(version(base + "first"));
+        versionService.save(version(base + "second"));
+        entityManager.flush();
+
+        DocumentVersion revert = versionService.revert(first, 2L);
+        DocumentVersion afterRevert = versionService.save(version(base + "first, edited"));
+        // reverting to a revert points at the original
+        DocumentVersion again = versionService.revert(revert, 2L);
+        entityManager.flush();
+        entityManager.clear();
+
+        DocumentVersion stored = versionRepository.findById(revert.getId()).orElseThrow();
+        assertThat(stored.isPointer()).isTrue();
+        assertThat(stored.getSourceVersionId()).isEqualTo(first.getId());
+        assertThat(versionService.resolveContent(stored)).isEqualTo(base + "first");
+        assertThat(versionService.resolveContent(versionRepository.findById(afterRevert.getId()).orElseThrow()))
+                .isEqualTo(base + "first, edited");
+        assertThat(versionRepository.findById(again.getId()).orElseThrow().getSourceVersionId()).isEqualTo(first.getId());
+        assertThat(contentStore.streamKeyframeTo(revert.getId(), new StringWriter())).isFalse();
+        // reverting to the content the document already has records nothing
+        assertThat(versionService.revert(again, 2L).getId()).isEqualTo(again.getId());
+    }
+
+    @Test
+    void testKeyframeContentIsStreamed() {
+        String content = "streamed keyframe ".repeat(1000);
+        Long keyframeId = versionService.save(version(content)).getId();
+        Long deltaId = versionService.save(version(content + "!")).getId();
+        entityManager.flush();
+
+        StringWriter out = new StringWriter();
+        assertThat(contentStore.streamKeyframeTo(keyframeId, out)).isTrue();
+        assertThat(out.toString()).isEqualTo(content);
+        assertThat(contentStore.streamKeyframeTo(deltaId, new StringWriter())).isFalse();
+    }
+
+    @Autowired
+    private UserContributionRepository contributionRepository;
+
+    @Test
+    void testContributionsAreCountedOnSave() {
+        versionService.save(version("a"));
+        versionService.save(version("ab"));
+        DocumentVersion other = version("abc");
+        other.setEditedByUserId(2L);
+        versionService.save(other);
+
+        assertThat(contributionRepository.findByDocumentId(1L))
+                .extracting(UserContribution::getUserId, UserContribution::getVersionCount)
+                .containsExactlyInAnyOrder(tuple(1L, 2L), tuple(2L, 1L));
+    }
+
+    @Test
+    void testVersionNumbersContinueFromExistingHistory() {
+        // counters are created in their own transaction, so use documents no other test touches
+        DocumentVersion legacy = version("legacy");
+        legacy.setDocumentId(70L);
+        legacy.setVersionNumber(7);
+        entityManager.persistAndFlush(legacy);
+
+        DocumentVersion next = version("next");
+        next.setDocumentId(70L);
+        assertThat(versionService.save(next).getVersionNumber()).isEqualTo(8);
+        DocumentVersion after = version("after");
+        after.setDocumentId(70L);
+        assertThat(versionService.save(after).getVersionNumber()).isEqualTo(9);
+
+        DocumentVersion otherDocument = version("other");
+        otherDocument.setDocumentId(71L);
+        assertThat(versionService.save(otherDocument).getVersionNumber()).isEqualTo(1);
+    }
+}